@@ -1,7 +0,0 @@
-package Exceptions;
-
-public class BadDurationException extends Exception {
-    public BadDurationException(String message) {
-        super(message);
-    }
-}
@@ -1,7 +0,0 @@
-package Exceptions;
-
-public class BadGenreException extends Exception{
-    public BadGenreException(String message) {
-        super(message);
-    }
-}
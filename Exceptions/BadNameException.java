@@ -1,7 +0,0 @@
-package Exceptions;
-
-public class BadNameException extends Exception {
-    public BadNameException(String message) {
-        super(message);
-    }
-}
@@ -1,7 +0,0 @@
-package Exceptions;
-
-public class BadRatingException extends Exception {
-    public BadRatingException(String message) {
-        super(message);
-    }
-}
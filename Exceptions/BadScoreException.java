@@ -1,7 +0,0 @@
-package Exceptions;
-
-public class BadScoreException extends Exception {
-    public BadScoreException(String message) {
-        super(message);
-    }
-}
@@ -1,7 +0,0 @@
-package Exceptions;
-
-public class BadTitleException extends Exception{
-    public BadTitleException(String message) {
-        super(message);
-    }
-}
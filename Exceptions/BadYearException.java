@@ -1,6 +0,0 @@
-package Exceptions;
-
-public class BadYearException extends Exception{
-    public BadYearException(String message) {
-    }
-}
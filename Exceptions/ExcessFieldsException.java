@@ -1,7 +0,0 @@
-package Exceptions;
-
-public class ExcessFieldsException extends Exception {
-    public ExcessFieldsException(String message) {
-        super(message);
-    }
-}
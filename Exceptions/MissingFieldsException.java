@@ -1,7 +0,0 @@
-package Exceptions;
-
-public class MissingFieldsException extends Exception {
-    public MissingFieldsException(String message) {
-        super(message);
-    }
-}
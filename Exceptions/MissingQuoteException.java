@@ -1,7 +0,0 @@
-package Exceptions;
-
-public class MissingQuoteException extends Exception {
-    public MissingQuoteException(String message) {
-        super(message);
-    }
-}
@@ -0,0 +1,7 @@
+package Exceptions;
+
+public class BadDurationException extends MovieRecordException {
+    public BadDurationException(String message) {
+        super(ErrorCode.BAD_DURATION, message);
+    }
+}
@@ -0,0 +1,7 @@
+package Exceptions;
+
+public class BadGenreException extends MovieRecordException {
+    public BadGenreException(String message) {
+        super(ErrorCode.BAD_GENRE, message);
+    }
+}
@@ -0,0 +1,7 @@
+package Exceptions;
+
+public class BadNameException extends MovieRecordException {
+    public BadNameException(String message) {
+        super(ErrorCode.BAD_NAME, message);
+    }
+}
@@ -0,0 +1,7 @@
+package Exceptions;
+
+public class BadRatingException extends MovieRecordException {
+    public BadRatingException(String message) {
+        super(ErrorCode.BAD_RATING, message);
+    }
+}
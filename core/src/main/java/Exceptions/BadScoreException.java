@@ -0,0 +1,7 @@
+package Exceptions;
+
+public class BadScoreException extends MovieRecordException {
+    public BadScoreException(String message) {
+        super(ErrorCode.BAD_SCORE, message);
+    }
+}
@@ -0,0 +1,7 @@
+package Exceptions;
+
+public class BadTitleException extends MovieRecordException {
+    public BadTitleException(String message) {
+        super(ErrorCode.BAD_TITLE, message);
+    }
+}
@@ -0,0 +1,7 @@
+package Exceptions;
+
+public class BadYearException extends MovieRecordException {
+    public BadYearException(String message) {
+        super(ErrorCode.BAD_YEAR, message);
+    }
+}
@@ -0,0 +1,17 @@
+package Exceptions;
+
+/**
+ * Identifies the kind of validation failure of a movie record, one code per exception type.
+ */
+public enum ErrorCode {
+    MISSING_QUOTE,
+    EXCESS_FIELDS,
+    MISSING_FIELDS,
+    BAD_YEAR,
+    BAD_TITLE,
+    BAD_DURATION,
+    BAD_GENRE,
+    BAD_RATING,
+    BAD_SCORE,
+    BAD_NAME
+}
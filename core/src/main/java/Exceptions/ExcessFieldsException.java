@@ -0,0 +1,7 @@
+package Exceptions;
+
+public class ExcessFieldsException extends MovieRecordException {
+    public ExcessFieldsException(String message) {
+        super(ErrorCode.EXCESS_FIELDS, message);
+    }
+}
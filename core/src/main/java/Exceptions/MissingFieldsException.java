@@ -0,0 +1,7 @@
+package Exceptions;
+
+public class MissingFieldsException extends MovieRecordException {
+    public MissingFieldsException(String message) {
+        super(ErrorCode.MISSING_FIELDS, message);
+    }
+}
@@ -0,0 +1,7 @@
+package Exceptions;
+
+public class MissingQuoteException extends MovieRecordException {
+    public MissingQuoteException(String message) {
+        super(ErrorCode.MISSING_QUOTE, message);
+    }
+}
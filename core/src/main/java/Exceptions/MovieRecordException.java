@@ -0,0 +1,20 @@
+package Exceptions;
+
+/**
+ * Base class of the exceptions raised when a movie record fails validation.
+ * A rejected record is an expected outcome rather than a programming error, so these exceptions do not capture
+ * a stack trace, which makes them cheap enough to throw for every bad row and safe to preallocate and share
+ * when their message is fixed.
+ */
+public abstract class MovieRecordException extends Exception {
+    private final ErrorCode errorCode;
+
+    protected MovieRecordException(ErrorCode errorCode, String message) {
+        super(message, null, false, false);
+        this.errorCode = errorCode;
+    }
+
+    public ErrorCode getErrorCode() {
+        return errorCode;
+    }
+}
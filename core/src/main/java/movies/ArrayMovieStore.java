@@ -0,0 +1,44 @@
+// -----------------------------------------------------
+// The ArrayMovieStore class is a MovieStore over an array of movies that are all held in memory,
+// such as a genre loaded by MovieManager.deserializeMovieArray.
+// -----------------------------------------------------
+
+package movies;
+
+public class ArrayMovieStore implements MovieStore {
+
+    private final Movie[] movies;
+
+    /**
+     * Creates a store over an array of movies, which is not copied.
+     * @param movies The movies of the store.
+     */
+    public ArrayMovieStore(Movie[] movies) {
+        this.movies = movies;
+    }
+
+    /**
+     * Wraps every genre of a catalog loaded as a 2D array of movies.
+     * @param allMovies The movies indexed by genre, with null for genres without movies.
+     * @return The stores indexed by genre, with null where the array has null.
+     */
+    public static MovieStore[] of(Movie[][] allMovies) {
+        MovieStore[] stores = new MovieStore[allMovies.length];
+        for (int i = 0; i < allMovies.length; i++) {
+            if (allMovies[i] != null) {
+                stores[i] = new ArrayMovieStore(allMovies[i]);
+            }
+        }
+        return stores;
+    }
+
+    @Override
+    public int size() {
+        return movies.length;
+    }
+
+    @Override
+    public Movie get(int index) {
+        return movies[index];
+    }
+}
@@ -0,0 +1,188 @@
+// -----------------------------------------------------
+// The ByteLineReader class reads a movie records file line by line without decoding it to characters.
+// The file is read through its FileChannel into a large direct buffer, and the bytes are moved in bulk into a window
+// where lines are found by scanning for line terminators, so a line is only a range of bytes of the window and
+// nothing is copied or decoded per line. Lines end at "\n", "\r" or "\r\n", as with BufferedReader.readLine,
+// and a last line without a terminator is still returned. Text is decoded as UTF-8 only when asked for.
+// A reader can also be limited to a range of the file, such as a chunk cut by FileChunker.
+// -----------------------------------------------------
+
+package movies;
+
+import java.io.Closeable;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+public class ByteLineReader implements Closeable {
+
+    public static final int DEFAULT_BUFFER_SIZE = 1 << 20;
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+    private byte[] window;
+    // Unread bytes of the window are between position and limit
+    private int position;
+    private int limit;
+    private int lineStart;
+    private int lineEnd;
+    private boolean endOfFile;
+    // The previous line ended with "\r", so a "\n" right after it belongs to the same terminator
+    private boolean skipLineFeed;
+    private long bytesRead;
+    // Bytes of the range that are still to be read from the file
+    private long remaining;
+
+    /**
+     * Opens a file with the default buffer size.
+     * @param fileName The name of the file to read.
+     * @throws IOException If the file cannot be opened.
+     */
+    public ByteLineReader(String fileName) throws IOException {
+        this(fileName, DEFAULT_BUFFER_SIZE);
+    }
+
+    /**
+     * Opens a file.
+     * @param fileName The name of the file to read.
+     * @param bufferSize The number of bytes read from the file at a time.
+     * @throws IOException If the file cannot be opened.
+     */
+    public ByteLineReader(String fileName, int bufferSize) throws IOException {
+        this(fileName, 0, Long.MAX_VALUE, bufferSize);
+    }
+
+    /**
+     * Opens a range of a file, whose lines are read as if the range was the whole file.
+     * @param fileName The name of the file to read.
+     * @param start The offset of the first byte of the range.
+     * @param end The offset after the last byte of the range.
+     * @param bufferSize The number of bytes read from the file at a time.
+     * @throws IOException If the file cannot be opened.
+     */
+    public ByteLineReader(String fileName, long start, long end, int bufferSize) throws IOException {
+        this.channel = new FileInputStream(fileName).getChannel();
+        this.buffer = ByteBuffer.allocateDirect(bufferSize);
+        this.window = new byte[bufferSize];
+        this.remaining = end - start;
+        try {
+            channel.position(start);
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Moves to the next line of the file.
+     * @return True if there is a line, false at the end of the file.
+     * @throws IOException If the file cannot be read.
+     */
+    public boolean nextLine() throws IOException {
+        if (skipLineFeed) {
+            if (position == limit) {
+                fill();
+            }
+            if (position < limit && window[position] == '\n') {
+                position++;
+            }
+            skipLineFeed = false;
+        }
+        int scan = position;
+        while (true) {
+            for (; scan < limit; scan++) {
+                byte b = window[scan];
+                if (b == '\n' || b == '\r') {
+                    lineStart = position;
+                    lineEnd = scan;
+                    position = scan + 1;
+                    skipLineFeed = b == '\r';
+                    return true;
+                }
+            }
+            if (endOfFile) {
+                if (position == limit) {
+                    return false;
+                }
+                lineStart = position;
+                lineEnd = limit;
+                position = limit;
+                return true;
+            }
+            // The line goes on past the window, which is refilled keeping the start of the line
+            scan -= position;
+            fill();
+        }
+    }
+
+    /**
+     * Returns the array holding the current line, between getLineStart and getLineEnd.
+     * The array is overwritten by the following calls to nextLine.
+     * @return The bytes of the window.
+     */
+    public byte[] getBuffer() {
+        return window;
+    }
+
+    public int getLineStart() {
+        return lineStart;
+    }
+
+    public int getLineEnd() {
+        return lineEnd;
+    }
+
+    /**
+     * Decodes the current line.
+     * @return The line, without its terminator.
+     */
+    public String getLine() {
+        return new String(window, lineStart, lineEnd - lineStart, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Returns the number of bytes read from the file so far.
+     * @return The number of bytes.
+     */
+    public long getBytesRead() {
+        return bytesRead;
+    }
+
+    /**
+     * Moves the unread bytes to the start of the window, growing it if they fill it, and reads more of the file
+     * after them.
+     */
+    private void fill() throws IOException {
+        int unread = limit - position;
+        if (unread == window.length) {
+            window = Arrays.copyOf(window, window.length * 2);
+        } else if (position > 0) {
+            System.arraycopy(window, position, window, 0, unread);
+        }
+        position = 0;
+        limit = unread;
+        if (remaining <= 0) {
+            endOfFile = true;
+            return;
+        }
+        buffer.clear();
+        buffer.limit((int) Math.min(Math.min(buffer.capacity(), window.length - limit), remaining));
+        int read = channel.read(buffer);
+        if (read < 0) {
+            endOfFile = true;
+            return;
+        }
+        buffer.flip();
+        buffer.get(window, limit, read);
+        limit += read;
+        bytesRead += read;
+        remaining -= read;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
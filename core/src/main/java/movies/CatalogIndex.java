@@ -0,0 +1,378 @@
+// -----------------------------------------------------
+// The CatalogIndex class builds secondary indexes over a loaded catalog, one store of movies per genre, so movies
+// can be found by director, actor, year, score or duration without walking every genre.
+// Movies are referred to by a row reference packing the index of their genre and their position in the genre.
+// The indexes are:
+// 1. Hash indexes from a director name, and from an actor name in any of the three actor fields, to the movies.
+// 2. A bucket index holding the movies of every year in the range of years of the catalog.
+// 3. Sorted indexes on score and on duration, answering inclusive range queries with two binary searches.
+// Every index is built by its own walk over the catalog and records how long that walk took, and estimates how much
+// memory it holds, not counting the movies and name strings it shares with the catalog. Years, scores and durations
+// are read through the primitive accessors of the stores, so only the name indexes decode whole movies.
+// -----------------------------------------------------
+
+package movies;
+
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+public class CatalogIndex {
+
+    private static final long[] NO_ROWS = new long[0];
+    private final MovieStore[] catalog;
+    private final NameIndex directors;
+    private final NameIndex actors;
+    private final YearIndex years;
+    private final RangeIndex scores;
+    private final RangeIndex durations;
+
+    private CatalogIndex(MovieStore[] catalog) {
+        this.catalog = catalog;
+        directors = new NameIndex("director", catalog, false);
+        actors = new NameIndex("actor", catalog, true);
+        years = new YearIndex(catalog);
+        scores = new RangeIndex("score", catalog, false);
+        durations = new RangeIndex("duration", catalog, true);
+    }
+
+    /**
+     * Builds every index over a catalog.
+     * @param catalog The movie stores indexed by genre, with null for genres without movies.
+     * @return The built indexes.
+     */
+    public static CatalogIndex build(MovieStore[] catalog) {
+        return new CatalogIndex(catalog);
+    }
+
+    /**
+     * Packs a genre index and a position in the genre into a row reference.
+     * @param genre The index of the genre.
+     * @param index The position of the movie in the genre.
+     * @return The row reference.
+     */
+    public static long row(int genre, int index) {
+        return ((long) genre << 32) | (index & 0xFFFFFFFFL);
+    }
+
+    /**
+     * Returns the genre index of a row reference.
+     * @param row The row reference.
+     * @return The index of the genre.
+     */
+    public static int genreOf(long row) {
+        return (int) (row >>> 32);
+    }
+
+    /**
+     * Returns the position in its genre of a row reference.
+     * @param row The row reference.
+     * @return The position of the movie in the genre.
+     */
+    public static int indexOf(long row) {
+        return (int) row;
+    }
+
+    /**
+     * Returns the movie a row reference refers to.
+     * @param row The row reference.
+     * @return The movie.
+     */
+    public Movie movie(long row) {
+        return catalog[genreOf(row)].get(indexOf(row));
+    }
+
+    /**
+     * Finds the movies of a director.
+     * @param director The exact name of the director.
+     * @return The row references of the movies, in catalog order.
+     */
+    public long[] byDirector(String director) {
+        return directors.lookup(director);
+    }
+
+    /**
+     * Finds the movies an actor plays in, in any of the three actor fields.
+     * @param actor The exact name of the actor.
+     * @return The row references of the movies, in catalog order.
+     */
+    public long[] byActor(String actor) {
+        return actors.lookup(actor);
+    }
+
+    /**
+     * Finds the movies of a year.
+     * @param year The year.
+     * @return The row references of the movies, in catalog order.
+     */
+    public long[] byYear(int year) {
+        return years.lookup(year);
+    }
+
+    /**
+     * Finds the movies with a score in an inclusive range.
+     * @param min The lowest score.
+     * @param max The highest score.
+     * @return The row references of the movies, in increasing score order.
+     */
+    public long[] byScoreRange(double min, double max) {
+        return scores.range(min, max);
+    }
+
+    /**
+     * Finds the movies with a duration in an inclusive range.
+     * @param min The shortest duration in minutes.
+     * @param max The longest duration in minutes.
+     * @return The row references of the movies, in increasing duration order.
+     */
+    public long[] byDurationRange(int min, int max) {
+        return durations.range(min, max);
+    }
+
+    /**
+     * Prints the build time and the estimated memory footprint of every index.
+     * @param out The stream to print the report to.
+     */
+    public void printReport(PrintStream out) {
+        out.println("-------------------------------");
+        out.println("        Catalog indexes        ");
+        out.println("-------------------------------");
+        printIndex(out, directors.name, directors.entries, directors.buildNanos, directors.estimatedBytes());
+        printIndex(out, actors.name, actors.entries, actors.buildNanos, actors.estimatedBytes());
+        printIndex(out, "year", years.entries, years.buildNanos, years.estimatedBytes());
+        printIndex(out, scores.name, scores.rows.length, scores.buildNanos, scores.estimatedBytes());
+        printIndex(out, durations.name, durations.rows.length, durations.buildNanos, durations.estimatedBytes());
+        out.println("-------------------------------");
+    }
+
+    private static void printIndex(PrintStream out, String name, long entries, long buildNanos, long bytes) {
+        out.printf("%s: %d entries, built in %.3f ms, about %d bytes%n", name, entries, buildNanos / 1e6, bytes);
+    }
+
+    // Hash index from a name to the rows of the movies that list it.
+    private static class NameIndex {
+        final String name;
+        private Map<String, RowList> building = new HashMap<>();
+        private final Map<String, long[]> rows = new HashMap<>();
+        long entries;
+        final long buildNanos;
+
+        NameIndex(String name, MovieStore[] catalog, boolean actors) {
+            this.name = name;
+            long start = System.nanoTime();
+            for (int genre = 0; genre < catalog.length; genre++) {
+                MovieStore movies = catalog[genre];
+                for (int i = 0; movies != null && i < movies.size(); i++) {
+                    Movie movie = movies.get(i);
+                    long row = row(genre, i);
+                    if (actors) {
+                        add(movie.getActor1(), row);
+                        add(movie.getActor2(), row);
+                        add(movie.getActor3(), row);
+                    } else {
+                        add(movie.getDirector(), row);
+                    }
+                }
+            }
+            freeze();
+            buildNanos = System.nanoTime() - start;
+        }
+
+        private void add(String key, long row) {
+            RowList list = building.computeIfAbsent(key, k -> new RowList());
+            // A name listed twice in the same movie is only indexed once
+            if (list.size == 0 || list.rows[list.size - 1] != row) {
+                list.add(row);
+                entries++;
+            }
+        }
+
+        private void freeze() {
+            for (Map.Entry<String, RowList> entry : building.entrySet()) {
+                rows.put(entry.getKey(), entry.getValue().toArray());
+            }
+            building = null;
+        }
+
+        long[] lookup(String key) {
+            long[] found = rows.get(key);
+            return found == null ? NO_ROWS : found;
+        }
+
+        long estimatedBytes() {
+            // Hash map node and table slot per key, array header per key, and one long per entry
+            return rows.size() * (32L + 8L + 16L) + 8L * entries;
+        }
+    }
+
+    // Bucket index holding the rows of every year between the lowest and highest year of the catalog.
+    private static class YearIndex {
+        private final long[][] buckets;
+        private final int firstYear;
+        final long entries;
+        final long buildNanos;
+
+        YearIndex(MovieStore[] catalog) {
+            long start = System.nanoTime();
+            int min = Integer.MAX_VALUE;
+            int max = Integer.MIN_VALUE;
+            long count = 0;
+            for (MovieStore movies : catalog) {
+                for (int i = 0; movies != null && i < movies.size(); i++) {
+                    int year = movies.year(i);
+                    min = Math.min(min, year);
+                    max = Math.max(max, year);
+                    count++;
+                }
+            }
+            firstYear = min;
+            RowList[] lists = new RowList[count == 0 ? 0 : max - min + 1];
+            for (int genre = 0; genre < catalog.length; genre++) {
+                MovieStore movies = catalog[genre];
+                for (int i = 0; movies != null && i < movies.size(); i++) {
+                    int bucket = movies.year(i) - min;
+                    if (lists[bucket] == null) {
+                        lists[bucket] = new RowList();
+                    }
+                    lists[bucket].add(row(genre, i));
+                }
+            }
+            buckets = new long[lists.length][];
+            for (int i = 0; i < lists.length; i++) {
+                buckets[i] = lists[i] == null ? NO_ROWS : lists[i].toArray();
+            }
+            entries = count;
+            buildNanos = System.nanoTime() - start;
+        }
+
+        long[] lookup(int year) {
+            int bucket = year - firstYear;
+            return bucket < 0 || bucket >= buckets.length ? NO_ROWS : buckets[bucket];
+        }
+
+        long estimatedBytes() {
+            return 16L + 8L * buckets.length + 16L * buckets.length + 8L * entries;
+        }
+    }
+
+    // Sorted index on a numeric field, holding the rows ordered by their value next to the sorted values.
+    private static class RangeIndex {
+        final String name;
+        private final double[] keys;
+        final long[] rows;
+        final long buildNanos;
+
+        RangeIndex(String name, MovieStore[] catalog, boolean duration) {
+            this.name = name;
+            long start = System.nanoTime();
+            RowList all = new RowList();
+            for (int genre = 0; genre < catalog.length; genre++) {
+                for (int i = 0; catalog[genre] != null && i < catalog[genre].size(); i++) {
+                    all.add(row(genre, i));
+                }
+            }
+            long[] unsorted = all.toArray();
+            double[] values = new double[unsorted.length];
+            for (int i = 0; i < unsorted.length; i++) {
+                MovieStore movies = catalog[genreOf(unsorted[i])];
+                values[i] = duration ? movies.duration(indexOf(unsorted[i])) : movies.score(indexOf(unsorted[i]));
+            }
+            int[] order = sortedOrder(values);
+            keys = new double[order.length];
+            rows = new long[order.length];
+            for (int i = 0; i < order.length; i++) {
+                keys[i] = values[order[i]];
+                rows[i] = unsorted[order[i]];
+            }
+            buildNanos = System.nanoTime() - start;
+        }
+
+        long[] range(double min, double max) {
+            if (min > max) {
+                return NO_ROWS;
+            }
+            return Arrays.copyOfRange(rows, lowerBound(min), upperBound(max));
+        }
+
+        // First position holding a value greater than or equal to the given one
+        private int lowerBound(double value) {
+            int low = 0;
+            int high = keys.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (keys[mid] < value) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        // First position holding a value greater than the given one
+        private int upperBound(double value) {
+            int low = 0;
+            int high = keys.length;
+            while (low < high) {
+                int mid = (low + high) >>> 1;
+                if (keys[mid] <= value) {
+                    low = mid + 1;
+                } else {
+                    high = mid;
+                }
+            }
+            return low;
+        }
+
+        long estimatedBytes() {
+            return 32L + 16L * rows.length;
+        }
+
+        // Stable merge sort of positions by value, keeping catalog order among equal values
+        private static int[] sortedOrder(double[] values) {
+            int[] order = new int[values.length];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+            int[] buffer = new int[values.length];
+            for (int width = 1; width < order.length; width *= 2) {
+                for (int low = 0; low < order.length - width; low += 2 * width) {
+                    int mid = low + width;
+                    int high = Math.min(low + 2 * width, order.length);
+                    int left = low;
+                    int right = mid;
+                    int out = low;
+                    while (left < mid && right < high) {
+                        buffer[out++] = values[order[right]] < values[order[left]] ? order[right++] : order[left++];
+                    }
+                    while (left < mid) {
+                        buffer[out++] = order[left++];
+                    }
+                    while (right < high) {
+                        buffer[out++] = order[right++];
+                    }
+                    System.arraycopy(buffer, low, order, low, high - low);
+                }
+            }
+            return order;
+        }
+    }
+
+    // Growable list of row references.
+    private static class RowList {
+        long[] rows = new long[4];
+        int size;
+
+        void add(long row) {
+            if (size == rows.length) {
+                rows = Arrays.copyOf(rows, size * 2);
+            }
+            rows[size++] = row;
+        }
+
+        long[] toArray() {
+            return Arrays.copyOf(rows, size);
+        }
+    }
+}
@@ -0,0 +1,224 @@
+// -----------------------------------------------------
+// The CodeTable class maps the fixed vocabularies of a movie record, its genres and its ratings, to small integer
+// codes without lowercasing the text or comparing it against every entry.
+// Each name is placed in a small open-addressing table under a code computed from its length and first two letters,
+// so a lookup usually reads a single slot and compares one name, ignoring ASCII case.
+// The table also remembers the last spelling seen for every code, so records that spell a genre or rating the
+// same way share one String instead of holding a fresh copy each.
+// Names can also be looked up in a range of UTF-8 bytes; as the names are ASCII, a byte that is not ASCII never matches.
+// -----------------------------------------------------
+
+package movies;
+
+import java.nio.charset.StandardCharsets;
+
+public class CodeTable {
+
+    public static final CodeTable GENRES = new CodeTable(
+            "musical", "comedy", "animation", "adventure", "drama", "crime", "biography", "horror",
+            "action", "documentary", "fantasy", "mystery", "sci-fi", "family", "romance", "thriller", "western");
+    public static final CodeTable RATINGS = new CodeTable("pg", "unrated", "g", "r", "pg-13", "nc-17");
+
+    private final String[] names;
+    private final String[] spellings;
+    private final int[] slots;
+    private final int mask;
+
+    /**
+     * Creates a table for the given names, which must be lowercase.
+     * @param names The names, each receiving its position as its code.
+     */
+    public CodeTable(String... names) {
+        this.names = names.clone();
+        this.spellings = names.clone();
+        int capacity = Integer.highestOneBit(Math.max(names.length, 1) * 4 - 1) << 1;
+        this.slots = new int[capacity];
+        this.mask = capacity - 1;
+        for (int code = 0; code < names.length; code++) {
+            int slot = slotOf(names[code], 0, names[code].length());
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            // Slots store the code plus one so that zero marks an empty slot
+            slots[slot] = code + 1;
+        }
+    }
+
+    /**
+     * Returns the number of names in the table.
+     * @return The number of codes.
+     */
+    public int size() {
+        return names.length;
+    }
+
+    /**
+     * Returns the lowercase name of a code.
+     * @param code The code.
+     * @return The name.
+     */
+    public String name(int code) {
+        return names[code];
+    }
+
+    /**
+     * Returns a copy of all names, in code order.
+     * @return The names.
+     */
+    public String[] names() {
+        return names.clone();
+    }
+
+    /**
+     * Looks up a name ignoring ASCII case.
+     * @param text The text to look up.
+     * @return The code of the name, or -1 if the text is not in the table.
+     */
+    public int lookup(CharSequence text) {
+        return text == null ? -1 : lookup(text, 0, text.length());
+    }
+
+    /**
+     * Looks up a range of characters ignoring ASCII case.
+     * @param text The text holding the name.
+     * @param start The index of the first character of the name.
+     * @param end The index after the last character of the name.
+     * @return The code of the name, or -1 if the range is not in the table.
+     */
+    public int lookup(CharSequence text, int start, int end) {
+        int slot = slotOf(text, start, end);
+        int entry;
+        while ((entry = slots[slot]) != 0) {
+            if (matches(names[entry - 1], text, start, end)) {
+                return entry - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns a String holding the exact spelling of a name found in a range of characters, reusing the
+     * String of the previous lookup when it was spelled the same way.
+     * @param code The code the range was looked up as.
+     * @param text The text holding the name.
+     * @param start The index of the first character of the name.
+     * @param end The index after the last character of the name.
+     * @return The name as spelled in the range.
+     */
+    public String spelling(int code, CharSequence text, int start, int end) {
+        String spelling = spellings[code];
+        if (spelling.length() == end - start) {
+            int i = 0;
+            while (i < spelling.length() && spelling.charAt(i) == text.charAt(start + i)) {
+                i++;
+            }
+            if (i == spelling.length()) {
+                return spelling;
+            }
+        }
+        // Racing threads may each store their own copy; either one is a valid spelling to share
+        spelling = text.subSequence(start, end).toString();
+        spellings[code] = spelling;
+        return spelling;
+    }
+
+    /**
+     * Looks up a range of UTF-8 bytes ignoring ASCII case.
+     * @param bytes The array holding the name.
+     * @param start The index of the first byte of the name.
+     * @param end The index after the last byte of the name.
+     * @return The code of the name, or -1 if the range is not in the table.
+     */
+    public int lookup(byte[] bytes, int start, int end) {
+        int slot = slotOf(bytes, start, end);
+        int entry;
+        while ((entry = slots[slot]) != 0) {
+            if (matches(names[entry - 1], bytes, start, end)) {
+                return entry - 1;
+            }
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns a String holding the exact spelling of a name found in a range of bytes, reusing the
+     * String of the previous lookup when it was spelled the same way.
+     * @param code The code the range was looked up as.
+     * @param bytes The array holding the name.
+     * @param start The index of the first byte of the name.
+     * @param end The index after the last byte of the name.
+     * @return The name as spelled in the range.
+     */
+    public String spelling(int code, byte[] bytes, int start, int end) {
+        String spelling = spellings[code];
+        if (spelling.length() == end - start) {
+            int i = 0;
+            while (i < spelling.length() && spelling.charAt(i) == bytes[start + i]) {
+                i++;
+            }
+            if (i == spelling.length()) {
+                return spelling;
+            }
+        }
+        // A range found in the table only holds ASCII bytes
+        spelling = new String(bytes, start, end - start, StandardCharsets.ISO_8859_1);
+        spellings[code] = spelling;
+        return spelling;
+    }
+
+    private int slotOf(CharSequence text, int start, int end) {
+        int length = end - start;
+        int code = length << 16;
+        if (length > 0) {
+            code |= fold(text.charAt(start)) << 8;
+        }
+        if (length > 1) {
+            code |= fold(text.charAt(start + 1));
+        }
+        code *= 0x9E3779B9;
+        return (code ^ (code >>> 16)) & mask;
+    }
+
+    private int slotOf(byte[] bytes, int start, int end) {
+        int length = end - start;
+        int code = length << 16;
+        if (length > 0) {
+            code |= fold((char) (bytes[start] & 0xFF)) << 8;
+        }
+        if (length > 1) {
+            code |= fold((char) (bytes[start + 1] & 0xFF));
+        }
+        code *= 0x9E3779B9;
+        return (code ^ (code >>> 16)) & mask;
+    }
+
+    private static boolean matches(String name, byte[] bytes, int start, int end) {
+        if (name.length() != end - start) {
+            return false;
+        }
+        for (int i = 0; i < name.length(); i++) {
+            if (fold((char) (bytes[start + i] & 0xFF)) != name.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean matches(String name, CharSequence text, int start, int end) {
+        if (name.length() != end - start) {
+            return false;
+        }
+        for (int i = 0; i < name.length(); i++) {
+            if (fold(text.charAt(start + i)) != name.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static char fold(char ch) {
+        return ch >= 'A' && ch <= 'Z' ? (char) (ch + ('a' - 'A')) : ch;
+    }
+}
@@ -0,0 +1,297 @@
+// -----------------------------------------------------
+// The ColumnarMovieStore class holds the movies of a genre in memory as one primitive array per field instead of
+// one Movie object per row, for catalogs too large to keep as Movie arrays. A Movie holds seven String references,
+// most of them to strings repeated across the catalog, so a loaded catalog is mostly object headers and copies of
+// the same names. Here the year, duration and score of a row are array elements, the genre and rating are byte
+// codes into a small table of their spellings, the director and actors are int ids into a NameDictionary that can
+// be shared by every genre, and the titles are UTF-8 bytes packed one after the other in a single array.
+// get assembles a new Movie from the columns every time it is asked for one, sharing the dictionary strings, so only
+// the Movie and its title are allocated. It is a copy, so changing it does not change the store. The year,
+// duration and score are read straight from their arrays, so a query over them builds no Movie at all.
+// A store is filled once when it is built and is read-only afterwards, so it can be read by many threads. Stores
+// sharing a dictionary can be built at the same time.
+// -----------------------------------------------------
+
+package movies;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class ColumnarMovieStore implements MovieStore {
+
+    /**
+     * A dictionary giving every distinct name an int id, so a name repeated across rows is held once.
+     * Names are added while stores are built, possibly by several threads building stores at the same time; names
+     * already in the dictionary are found without locking. Freezing the dictionary once every store is built drops
+     * the map used to find them, which leaves only the array of names.
+     */
+    public static class NameDictionary {
+        private String[] names = new String[1024];
+        private int size;
+        private Map<String, Integer> ids = new ConcurrentHashMap<>();
+
+        /**
+         * Returns the id of a name, adding the name the first time it is seen.
+         * @param name The name, or null.
+         * @return The id of the name, or -1 for null.
+         * @throws IllegalStateException If the name is new and the dictionary is frozen.
+         */
+        public int id(String name) {
+            if (name == null) {
+                return -1;
+            }
+            if (ids == null) {
+                throw new IllegalStateException("The name dictionary is frozen.");
+            }
+            Integer id = ids.get(name);
+            return id != null ? id : add(name);
+        }
+
+        private synchronized int add(String name) {
+            Integer id = ids.get(name);
+            if (id == null) {
+                if (size == names.length) {
+                    names = Arrays.copyOf(names, size * 2);
+                }
+                id = size;
+                names[size++] = name;
+                ids.put(name, id);
+            }
+            return id;
+        }
+
+        /**
+         * Returns the name of an id.
+         * @param id The id returned by id(String).
+         * @return The name, or null for -1.
+         */
+        public String name(int id) {
+            return id < 0 ? null : names[id];
+        }
+
+        /**
+         * Returns the number of distinct names.
+         * @return The number of names.
+         */
+        public int size() {
+            return size;
+        }
+
+        /**
+         * Stops adding names, trimming the array of names and dropping the map used to find them.
+         */
+        public synchronized void freeze() {
+            if (ids != null) {
+                names = Arrays.copyOf(names, size);
+                ids = null;
+            }
+        }
+
+        /**
+         * Estimates the memory held by the dictionary, counting every name as a String of Latin-1 characters.
+         * @return The estimated number of bytes.
+         */
+        public long estimatedBytes() {
+            long bytes = 16L + 4L * names.length;
+            for (int i = 0; i < size; i++) {
+                // String object and its byte array, each with its header and padding
+                bytes += 24L + ((16L + names[i].length() + 7) & ~7L);
+            }
+            if (ids != null) {
+                // Hash map node, boxed id and table slot per name
+                bytes += size * (32L + 16L + 8L);
+            }
+            return bytes;
+        }
+    }
+
+    // The distinct spellings of the genres or the ratings of a store; a row holds the position of its spelling
+    private static class Spellings {
+        private String[] spellings = new String[0];
+
+        byte code(String spelling) {
+            for (int i = 0; i < spellings.length; i++) {
+                if (spellings[i].equals(spelling)) {
+                    return (byte) i;
+                }
+            }
+            if (spellings.length == 256) {
+                throw new IllegalArgumentException("Too many spellings of a genre or rating: " + spelling);
+            }
+            spellings = Arrays.copyOf(spellings, spellings.length + 1);
+            spellings[spellings.length - 1] = spelling;
+            return (byte) (spellings.length - 1);
+        }
+
+        String spelling(byte code) {
+            return spellings[code & 0xFF];
+        }
+    }
+
+    // The largest array most JVMs can allocate
+    private static final int MAX_TITLE_BYTES = Integer.MAX_VALUE - 8;
+    private final NameDictionary names;
+    private final Spellings genreSpellings = new Spellings();
+    private final Spellings ratingSpellings = new Spellings();
+    private final MovieStats stats = new MovieStats();
+    private final int[] years;
+    private final short[] durations;
+    private final double[] scores;
+    private final byte[] genres;
+    private final byte[] ratings;
+    private final int[] directors;
+    private final int[] actors1;
+    private final int[] actors2;
+    private final int[] actors3;
+    // Title i is made of the bytes from titleOffsets[i] to titleOffsets[i + 1]
+    private final int[] titleOffsets;
+    private byte[] titleBytes;
+    private int size;
+
+    private ColumnarMovieStore(int capacity, NameDictionary names) {
+        this.names = names;
+        years = new int[capacity];
+        durations = new short[capacity];
+        scores = new double[capacity];
+        genres = new byte[capacity];
+        ratings = new byte[capacity];
+        directors = new int[capacity];
+        actors1 = new int[capacity];
+        actors2 = new int[capacity];
+        actors3 = new int[capacity];
+        titleOffsets = new int[capacity + 1];
+        titleBytes = new byte[(int) Math.min(capacity * 16L, MAX_TITLE_BYTES)];
+    }
+
+    /**
+     * Builds a store holding a copy of an array of movies.
+     * @param movies The movies of the store.
+     * @param names The dictionary to add the director and actor names to, which may be shared with other stores.
+     * @return The store.
+     */
+    public static ColumnarMovieStore of(Movie[] movies, NameDictionary names) {
+        ColumnarMovieStore store = new ColumnarMovieStore(movies.length, names);
+        for (Movie movie : movies) {
+            store.add(movie);
+        }
+        store.trimTitles();
+        return store;
+    }
+
+    /**
+     * Loads a genre file written by MovieColumnWriter, decoding its movies one block at a time so that no array
+     * of movies is built on the way.
+     * @param fileName The name of the genre file.
+     * @param names The dictionary to add the director and actor names to, which may be shared with other stores.
+     * @return The store.
+     * @throws IOException If the file cannot be read or is not a complete movie file.
+     */
+    public static ColumnarMovieStore load(String fileName, NameDictionary names) throws IOException {
+        try (MovieColumnFile file = MovieColumnFile.open(fileName)) {
+            ColumnarMovieStore store = new ColumnarMovieStore(file.size(), names);
+            for (int b = 0; b < file.getBlockCount(); b++) {
+                ByteBuffer block = file.mapBlock(b);
+                int rows = file.getBlockRows(b);
+                for (int row = 0; row < rows; row++) {
+                    store.add(file.decode(block, rows, row));
+                }
+            }
+            store.trimTitles();
+            return store;
+        }
+    }
+
+    private void add(Movie movie) {
+        if (movie.getDuration() < Short.MIN_VALUE || movie.getDuration() > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Duration out of range: " + movie.getDuration());
+        }
+        years[size] = movie.getYear();
+        durations[size] = (short) movie.getDuration();
+        scores[size] = movie.getScore();
+        genres[size] = genreSpellings.code(movie.getGenres());
+        ratings[size] = ratingSpellings.code(movie.getRating());
+        directors[size] = names.id(movie.getDirector());
+        actors1[size] = names.id(movie.getActor1());
+        actors2[size] = names.id(movie.getActor2());
+        actors3[size] = names.id(movie.getActor3());
+        byte[] title = movie.getTitle().getBytes(StandardCharsets.UTF_8);
+        int start = titleOffsets[size];
+        long needed = (long) start + title.length;
+        if (needed > titleBytes.length) {
+            if (needed > MAX_TITLE_BYTES) {
+                throw new IllegalStateException("The titles of a genre do not fit in a columnar store.");
+            }
+            titleBytes = Arrays.copyOf(titleBytes, (int) Math.min(Math.max(titleBytes.length * 2L, needed),
+                    MAX_TITLE_BYTES));
+        }
+        System.arraycopy(title, 0, titleBytes, start, title.length);
+        titleOffsets[size + 1] = start + title.length;
+        stats.add(movie);
+        size++;
+    }
+
+    private void trimTitles() {
+        titleBytes = Arrays.copyOf(titleBytes, titleOffsets[size]);
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Movie get(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Movie index " + index + " out of bounds for " + size + " movies");
+        }
+        String genre = genreSpellings.spelling(genres[index]);
+        String rating = ratingSpellings.spelling(ratings[index]);
+        String title = new String(titleBytes, titleOffsets[index], titleOffsets[index + 1] - titleOffsets[index],
+                StandardCharsets.UTF_8);
+        return new Movie(years[index], title, durations[index], genre, CodeTable.GENRES.lookup(genre), rating,
+                CodeTable.RATINGS.lookup(rating), scores[index], names.name(directors[index]),
+                names.name(actors1[index]), names.name(actors2[index]), names.name(actors3[index]));
+    }
+
+    @Override
+    public int year(int index) {
+        return years[index];
+    }
+
+    @Override
+    public int duration(int index) {
+        return durations[index];
+    }
+
+    @Override
+    public double score(int index) {
+        return scores[index];
+    }
+
+    @Override
+    public MovieStats getStats() {
+        return stats;
+    }
+
+    /**
+     * Returns the dictionary holding the director and actor names of the store.
+     * @return The name dictionary.
+     */
+    public NameDictionary getNames() {
+        return names;
+    }
+
+    /**
+     * Estimates the memory held by the columns of the store, not counting the name dictionary it may share.
+     * @return The estimated number of bytes.
+     */
+    public long estimatedBytes() {
+        int rows = years.length;
+        // Eleven array headers, then the elements of every column
+        return 11 * 16L + rows * (4L + 2L + 8L + 1L + 1L + 4L * 4) + 4L * (rows + 1) + titleBytes.length;
+    }
+}
@@ -0,0 +1,346 @@
+// -----------------------------------------------------
+// The CsvTokenizer class splits a movie record into its fields in a single scan of the line.
+// Instead of copying characters into a StringBuilder, it only remembers where each field starts and ends in the
+// original line. A field becomes a String the first time it is asked for, and that String is kept until the next
+// line is tokenized, so a record that fails validation early never pays for the fields after the failing one.
+// A line can be given as a String or as a range of UTF-8 bytes, such as a line of a ByteLineReader. Bytes are
+// split without being decoded: numbers are parsed and genres and ratings looked up straight from the bytes, and
+// only the fields asked for as Strings, such as the title and the names, are decoded. Names can be looked up in a
+// NamePool from the line as well, so a name seen before is not decoded either.
+// One instance is meant to be reused for every line of a file by a single thread.
+// The splitting rules are the ones of the movie records files: commas inside double quotes do not separate fields,
+// the quote characters themselves are dropped, fields are trimmed, and everything after the tenth comma is ignored.
+// -----------------------------------------------------
+
+package movies;
+
+import java.nio.charset.StandardCharsets;
+
+public class CsvTokenizer {
+
+    public static final int EXPECTED_FIELD_COUNT = 10;
+    // Powers of ten that are exact as doubles, for parsing short decimal numbers exactly
+    private static final double[] POWERS_OF_TEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+    private final int[] starts = new int[EXPECTED_FIELD_COUNT];
+    private final int[] ends = new int[EXPECTED_FIELD_COUNT];
+    private final boolean[] quoted = new boolean[EXPECTED_FIELD_COUNT];
+    private final String[] values = new String[EXPECTED_FIELD_COUNT];
+    private String line;
+    private byte[] bytes;
+    private int presentCount;
+
+    /**
+     * Scans a line and records the boundaries of its fields.
+     * @param line A single line from a movie records file.
+     * @return The number of fields terminated by a comma, which is one less than the number of fields found
+     *         when the line ends outside of quotes.
+     */
+    public int tokenize(String line) {
+        this.line = line;
+        this.bytes = null;
+        int fieldIndex = 0;
+        int start = 0;
+        boolean inQuotes = false;
+        boolean hasQuote = false;
+        int length = line.length();
+        for (int i = 0; i < length; i++) {
+            char ch = line.charAt(i);
+            if (ch == '\"') {
+                inQuotes = !inQuotes;
+                hasQuote = true;
+            } else if (ch == ',' && !inQuotes) {
+                setField(fieldIndex++, start, i, hasQuote);
+                start = i + 1;
+                hasQuote = false;
+                if (fieldIndex >= EXPECTED_FIELD_COUNT) {
+                    // Anything after the last expected field is ignored
+                    break;
+                }
+            }
+        }
+        presentCount = fieldIndex;
+        // The last field only counts when the line does not end inside quotes
+        if (!inQuotes && fieldIndex < EXPECTED_FIELD_COUNT) {
+            setField(fieldIndex, start, length, hasQuote);
+            presentCount++;
+        }
+        return fieldIndex;
+    }
+
+    /**
+     * Scans a line held as UTF-8 bytes and records the boundaries of its fields, with the same rules as for a
+     * String. Quotes and commas never occur inside the encoding of other characters, so no byte is decoded.
+     * @param bytes The array holding the line.
+     * @param from The index of the first byte of the line.
+     * @param to The index after the last byte of the line.
+     * @return The number of fields terminated by a comma, which is one less than the number of fields found
+     *         when the line ends outside of quotes.
+     */
+    public int tokenize(byte[] bytes, int from, int to) {
+        this.line = null;
+        this.bytes = bytes;
+        int fieldIndex = 0;
+        int start = from;
+        boolean inQuotes = false;
+        boolean hasQuote = false;
+        for (int i = from; i < to; i++) {
+            byte b = bytes[i];
+            if (b == '\"') {
+                inQuotes = !inQuotes;
+                hasQuote = true;
+            } else if (b == ',' && !inQuotes) {
+                setByteField(fieldIndex++, start, i, hasQuote);
+                start = i + 1;
+                hasQuote = false;
+                if (fieldIndex >= EXPECTED_FIELD_COUNT) {
+                    break;
+                }
+            }
+        }
+        presentCount = fieldIndex;
+        if (!inQuotes && fieldIndex < EXPECTED_FIELD_COUNT) {
+            setByteField(fieldIndex, start, to, hasQuote);
+            presentCount++;
+        }
+        return fieldIndex;
+    }
+
+    /**
+     * Returns the trimmed value of a field of the last tokenized line, without its quote characters.
+     * @param index The index of the field.
+     * @return The field value, or null if the line has no such field.
+     */
+    public String field(int index) {
+        if (index >= presentCount) {
+            return null;
+        }
+        if (values[index] == null) {
+            if (quoted[index]) {
+                values[index] = unquote(starts[index], ends[index]);
+            } else if (bytes != null) {
+                values[index] = new String(bytes, starts[index], ends[index] - starts[index], StandardCharsets.UTF_8);
+            } else {
+                values[index] = line.substring(starts[index], ends[index]);
+            }
+        }
+        return values[index];
+    }
+
+    /**
+     * Returns the value of a field of the last tokenized line through a name pool, so that records naming the same
+     * person share one String. A field with no quotes is looked up straight from the line, and is only copied out of
+     * it when the pool does not hold it.
+     * @param index The index of the field.
+     * @param pool The pool to look the field up in.
+     * @return The field value, or null if the line has no such field.
+     */
+    public String pooledField(int index, NamePool pool) {
+        if (index >= presentCount) {
+            return null;
+        }
+        if (values[index] == null) {
+            if (quoted[index]) {
+                values[index] = pool.intern(unquote(starts[index], ends[index]));
+            } else if (bytes != null) {
+                values[index] = pool.intern(bytes, starts[index], ends[index]);
+            } else {
+                values[index] = pool.intern(line, starts[index], ends[index]);
+            }
+        }
+        return values[index];
+    }
+
+    /**
+     * Parses a field of the last tokenized line as a decimal integer, straight from the line when the field
+     * has no quotes so no String is created for it.
+     * @param index The index of the field.
+     * @return The integer value of the field.
+     * @throws NumberFormatException If the line has no such field or the field is not an integer.
+     */
+    public int intField(int index) {
+        if (index >= presentCount) {
+            throw new NumberFormatException("Missing field " + index);
+        }
+        if (quoted[index]) {
+            return Integer.parseInt(field(index));
+        }
+        if (bytes == null) {
+            return Integer.parseInt(line, starts[index], ends[index], 10);
+        }
+        int i = starts[index];
+        int end = ends[index];
+        boolean negative = i < end && bytes[i] == '-';
+        if (i < end && (bytes[i] == '-' || bytes[i] == '+')) {
+            i++;
+        }
+        // Anything but a short run of ASCII digits is left to Integer.parseInt, which also accepts other digits
+        if (i == end || end - i > 9) {
+            return Integer.parseInt(field(index));
+        }
+        int value = 0;
+        for (; i < end; i++) {
+            int digit = bytes[i] - '0';
+            if (digit < 0 || digit > 9) {
+                return Integer.parseInt(field(index));
+            }
+            value = value * 10 + digit;
+        }
+        return negative ? -value : value;
+    }
+
+    /**
+     * Parses a field of the last tokenized line as a double, with the result of Double.parseDouble.
+     * Short decimal numbers held as bytes are parsed straight from the line, as their digits and power of ten are
+     * both exact doubles and a single division rounds the quotient correctly.
+     * @param index The index of the field.
+     * @return The double value of the field.
+     * @throws NumberFormatException If the line has no such field or the field is not a number.
+     * @throws NullPointerException If the line has no such field.
+     */
+    public double doubleField(int index) {
+        if (index >= presentCount || quoted[index] || bytes == null) {
+            return Double.parseDouble(field(index));
+        }
+        int i = starts[index];
+        int end = ends[index];
+        boolean negative = i < end && bytes[i] == '-';
+        if (i < end && (bytes[i] == '-' || bytes[i] == '+')) {
+            i++;
+        }
+        long mantissa = 0;
+        int digits = 0;
+        int fractionDigits = -1;
+        for (; i < end; i++) {
+            byte b = bytes[i];
+            if (b == '.' && fractionDigits < 0) {
+                fractionDigits = 0;
+            } else if (b >= '0' && b <= '9' && digits < 15) {
+                mantissa = mantissa * 10 + (b - '0');
+                digits++;
+                if (fractionDigits >= 0) {
+                    fractionDigits++;
+                }
+            } else {
+                // Exponents, special values, type suffixes and long numbers are left to Double.parseDouble
+                return Double.parseDouble(field(index));
+            }
+        }
+        if (digits == 0) {
+            return Double.parseDouble(field(index));
+        }
+        double value = fractionDigits > 0 ? mantissa / POWERS_OF_TEN[fractionDigits] : mantissa;
+        return negative ? -value : value;
+    }
+
+    /**
+     * Tells whether a field of the last tokenized line is missing or empty.
+     * @param index The index of the field.
+     * @return True if the line has no such field or the field is empty.
+     */
+    public boolean isEmptyField(int index) {
+        if (index >= presentCount) {
+            return true;
+        }
+        return quoted[index] ? field(index).isEmpty() : starts[index] == ends[index];
+    }
+
+    /**
+     * Looks up a field of the last tokenized line in a code table, straight from the line when the field
+     * has no quotes so no String is created for it.
+     * @param index The index of the field.
+     * @param table The table to look the field up in.
+     * @return The code of the field, or -1 if the line has no such field or the table does not contain it.
+     */
+    public int codeField(int index, CodeTable table) {
+        if (index >= presentCount) {
+            return -1;
+        }
+        if (quoted[index]) {
+            return table.lookup(field(index));
+        }
+        if (bytes != null) {
+            return table.lookup(bytes, starts[index], ends[index]);
+        }
+        return table.lookup(line, starts[index], ends[index]);
+    }
+
+    /**
+     * Returns the value of a field found in a code table, sharing the String of an earlier field spelled the same way.
+     * @param index The index of the field.
+     * @param table The table the field was found in.
+     * @param code The code returned by codeField for the field.
+     * @return The field value.
+     */
+    public String codeSpelling(int index, CodeTable table, int code) {
+        if (quoted[index]) {
+            return field(index);
+        }
+        if (bytes != null) {
+            return table.spelling(code, bytes, starts[index], ends[index]);
+        }
+        return table.spelling(code, line, starts[index], ends[index]);
+    }
+
+    /**
+     * Records a field of a String line, narrowing it to its trimmed range when it contains no quotes.
+     */
+    private void setField(int index, int start, int end, boolean hasQuote) {
+        if (!hasQuote) {
+            while (start < end && line.charAt(start) <= ' ') {
+                start++;
+            }
+            while (end > start && line.charAt(end - 1) <= ' ') {
+                end--;
+            }
+        }
+        starts[index] = start;
+        ends[index] = end;
+        quoted[index] = hasQuote;
+        values[index] = null;
+    }
+
+    /**
+     * Records a field of a byte line, narrowing it to its trimmed range when it contains no quotes.
+     * Bytes of non-ASCII characters are negative, so they are never trimmed.
+     */
+    private void setByteField(int index, int start, int end, boolean hasQuote) {
+        if (!hasQuote) {
+            while (start < end && bytes[start] >= 0 && bytes[start] <= ' ') {
+                start++;
+            }
+            while (end > start && bytes[end - 1] >= 0 && bytes[end - 1] <= ' ') {
+                end--;
+            }
+        }
+        starts[index] = start;
+        ends[index] = end;
+        quoted[index] = hasQuote;
+        values[index] = null;
+    }
+
+    /**
+     * Builds the value of a field containing quotes: the quote characters are dropped before trimming.
+     */
+    private String unquote(int start, int end) {
+        if (bytes != null) {
+            byte[] value = new byte[end - start];
+            int length = 0;
+            for (int i = start; i < end; i++) {
+                if (bytes[i] != '\"') {
+                    value[length++] = bytes[i];
+                }
+            }
+            return new String(value, 0, length, StandardCharsets.UTF_8).trim();
+        }
+        StringBuilder value = new StringBuilder(end - start);
+        for (int i = start; i < end; i++) {
+            char ch = line.charAt(i);
+            if (ch != '\"') {
+                value.append(ch);
+            }
+        }
+        return value.toString().trim();
+    }
+}
@@ -0,0 +1,390 @@
+// -----------------------------------------------------
+// The DatasetGenerator class writes synthetic yearly movie records files and the part 1 manifest listing them, so
+// benchmarks and stress tests can run at any scale without the real input files. The output only depends on the
+// settings and the seed: every yearly file is drawn from a random generator seeded with the seed and its year.
+// Genres follow a Zipf-like skew, some titles are quoted and hold a comma, and a share of the records is made
+// invalid by breaking exactly one field, so each invalid record is rejected with the error code it was made for.
+// Every error code validateMovieRecord can report is produced, with weights that can be set per code. Fields past
+// the tenth are ignored and an unclosed quote swallows the rest of the line, so ExcessFieldsException and
+// MissingQuoteException are never raised; an unclosed quote is one of the ways a MISSING_FIELDS record is made.
+// It can be run on its own:
+//     java -cp core/target/classes movies.DatasetGenerator --rows=1000000 --reject-rate=0.1 --dir=data
+// -----------------------------------------------------
+
+package movies;
+
+import Exceptions.ErrorCode;
+import java.io.*;
+import java.util.EnumMap;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Random;
+
+public class DatasetGenerator {
+
+    public static final String MANIFEST = "part1_manifest.txt";
+    // The error codes validateMovieRecord can report, which are the ones a record can be made to fail with
+    private static final ErrorCode[] CODES = {ErrorCode.MISSING_FIELDS, ErrorCode.BAD_YEAR, ErrorCode.BAD_TITLE,
+            ErrorCode.BAD_DURATION, ErrorCode.BAD_GENRE, ErrorCode.BAD_RATING, ErrorCode.BAD_SCORE, ErrorCode.BAD_NAME};
+    private static final String[] GENRES = CodeTable.GENRES.names();
+    private static final String[] RATINGS = CodeTable.RATINGS.names();
+    private static final String[] FIRST_NAMES = {"Li", "Kim", "Ann", "John", "Bob", "Ana", "Maria", "Omar", "Yuki",
+            "Priya", "Lars", "Chloe", "Ivan", "Noor", "Diego", "Zoe"};
+    private static final String[] LAST_NAMES = {"Wei", "Park", "Lee", "Smith", "Ray", "Cruz", "Garcia", "Haddad",
+            "Tanaka", "Patel", "Berg", "Martin", "Novak", "Okafor", "Silva", "Jensen"};
+    private static final String[] WORDS = {"Night", "River", "Last", "Summer", "Shadow", "Love", "City", "Storm",
+            "Secret", "Road", "Star", "Game", "Heart", "Fire", "Dream", "Return"};
+
+    private final long seed;
+    private int rows = 100_000;
+    private int firstYear = 1990;
+    private int lastYear = 1999;
+    private double genreSkew = 1.0;
+    private double quotedTitleRate = 0.2;
+    private double rejectRate = 0.1;
+    private final Map<ErrorCode, Double> errorMix = new EnumMap<>(ErrorCode.class);
+
+    /**
+     * The outcome of writing a dataset.
+     */
+    public static class Summary {
+        private final File manifest;
+        private final long[] codeCounts = new long[ErrorCode.values().length];
+        private long rows;
+        private long validRows;
+        private long bytes;
+
+        private Summary(File manifest) {
+            this.manifest = manifest;
+        }
+
+        public File getManifest() {
+            return manifest;
+        }
+
+        public long getRows() {
+            return rows;
+        }
+
+        public long getValidRows() {
+            return validRows;
+        }
+
+        public long getBytes() {
+            return bytes;
+        }
+
+        /**
+         * Returns the number of records made to fail with an error code.
+         * @param code The error code.
+         * @return The number of records.
+         */
+        public long getCount(ErrorCode code) {
+            return codeCounts[code.ordinal()];
+        }
+
+        @Override
+        public String toString() {
+            StringBuilder text = new StringBuilder(String.format("%d rows, %d valid, %.1f MB", rows, validRows,
+                    bytes / 1e6));
+            for (ErrorCode code : ErrorCode.values()) {
+                if (codeCounts[code.ordinal()] > 0) {
+                    text.append(", ").append(code).append(' ').append(codeCounts[code.ordinal()]);
+                }
+            }
+            return text.toString();
+        }
+    }
+
+    /**
+     * Creates a generator with the default settings: 100,000 rows over the years 1990 to 1999, a genre skew of 1,
+     * one title in five quoted and one record in ten invalid, spread evenly over the error codes.
+     * @param seed The seed every yearly file is drawn from.
+     */
+    public DatasetGenerator(long seed) {
+        this.seed = seed;
+        for (ErrorCode code : CODES) {
+            errorMix.put(code, 1.0);
+        }
+    }
+
+    /**
+     * Sets the total number of records, spread evenly over the yearly files.
+     * @param rows The number of records.
+     * @return This generator.
+     */
+    public DatasetGenerator rows(int rows) {
+        if (rows < 0) {
+            throw new IllegalArgumentException("The number of rows must not be negative.");
+        }
+        this.rows = rows;
+        return this;
+    }
+
+    /**
+     * Sets the years of the yearly files.
+     * @param firstYear The year of the first file.
+     * @param lastYear The year of the last file.
+     * @return This generator.
+     */
+    public DatasetGenerator years(int firstYear, int lastYear) {
+        if (lastYear < firstYear) {
+            throw new IllegalArgumentException("The last year must not be before the first year.");
+        }
+        this.firstYear = firstYear;
+        this.lastYear = lastYear;
+        return this;
+    }
+
+    /**
+     * Sets how unevenly the genres are drawn: the genre of rank k is drawn with a weight of 1 / k^skew.
+     * @param genreSkew The exponent of the weights, 0 for uniform genres.
+     * @return This generator.
+     */
+    public DatasetGenerator genreSkew(double genreSkew) {
+        if (genreSkew < 0) {
+            throw new IllegalArgumentException("The genre skew must not be negative.");
+        }
+        this.genreSkew = genreSkew;
+        return this;
+    }
+
+    /**
+     * Sets the share of valid records whose title is quoted and holds a comma.
+     * @param quotedTitleRate The share, between 0 and 1.
+     * @return This generator.
+     */
+    public DatasetGenerator quotedTitleRate(double quotedTitleRate) {
+        this.quotedTitleRate = checkRate(quotedTitleRate);
+        return this;
+    }
+
+    /**
+     * Sets the share of invalid records.
+     * @param rejectRate The share, between 0 and 1.
+     * @return This generator.
+     */
+    public DatasetGenerator rejectRate(double rejectRate) {
+        this.rejectRate = checkRate(rejectRate);
+        return this;
+    }
+
+    /**
+     * Sets how often invalid records fail with an error code, relative to the other codes.
+     * @param code The error code.
+     * @param weight The weight of the code, 0 to never produce it.
+     * @return This generator.
+     * @throws IllegalArgumentException If records cannot be made to fail with the code.
+     */
+    public DatasetGenerator errorWeight(ErrorCode code, double weight) {
+        if (!errorMix.containsKey(code)) {
+            throw new IllegalArgumentException("Records cannot be made to fail with " + code + ".");
+        }
+        if (weight < 0) {
+            throw new IllegalArgumentException("The weight of " + code + " must not be negative.");
+        }
+        errorMix.put(code, weight);
+        return this;
+    }
+
+    private static double checkRate(double rate) {
+        if (rate < 0 || rate > 1) {
+            throw new IllegalArgumentException("A rate must be between 0 and 1.");
+        }
+        return rate;
+    }
+
+    /**
+     * Writes the yearly files, named Movies<year>.csv, and the manifest listing them to a directory.
+     * @param directory The directory, created if needed.
+     * @return What was written.
+     * @throws IOException If a file cannot be written.
+     */
+    public Summary write(File directory) throws IOException {
+        if (!directory.isDirectory() && !directory.mkdirs()) {
+            throw new IOException("Could not create " + directory);
+        }
+        double[] genreWeights = new double[GENRES.length];
+        for (int i = 0; i < GENRES.length; i++) {
+            genreWeights[i] = 1 / Math.pow(i + 1, genreSkew);
+        }
+        double[] codeWeights = new double[CODES.length];
+        for (int i = 0; i < CODES.length; i++) {
+            codeWeights[i] = errorMix.get(CODES[i]);
+        }
+        double[] genreBounds = cumulative(genreWeights);
+        double[] codeBounds = cumulative(codeWeights);
+        if (rejectRate > 0 && codeBounds[codeBounds.length - 1] == 0) {
+            throw new IllegalArgumentException("At least one error code must have a weight.");
+        }
+
+        Summary summary = new Summary(new File(directory, MANIFEST));
+        int files = lastYear - firstYear + 1;
+        try (PrintWriter manifestWriter = new PrintWriter(new FileWriter(summary.manifest))) {
+            for (int year = firstYear; year <= lastYear; year++) {
+                File inputFile = new File(directory, "Movies" + year + ".csv");
+                manifestWriter.println(inputFile.getName());
+                int fileRows = rows / files + (year - firstYear < rows % files ? 1 : 0);
+                Random random = new Random(seed * 31 + year);
+                try (PrintWriter out = new PrintWriter(new BufferedWriter(new FileWriter(inputFile), 1 << 16))) {
+                    for (int row = 0; row < fileRows; row++) {
+                        String[] fields = validFields(random, year, row, GENRES[draw(random, genreBounds)]);
+                        String record;
+                        if (random.nextDouble() < rejectRate) {
+                            ErrorCode code = CODES[draw(random, codeBounds)];
+                            record = breakRecord(random, fields, code);
+                            summary.codeCounts[code.ordinal()]++;
+                        } else {
+                            record = String.join(",", fields);
+                            summary.validRows++;
+                        }
+                        out.println(record);
+                    }
+                }
+                summary.rows += fileRows;
+                summary.bytes += inputFile.length();
+            }
+        }
+        return summary;
+    }
+
+    private static double[] cumulative(double[] weights) {
+        double[] bounds = new double[weights.length];
+        double total = 0;
+        for (int i = 0; i < weights.length; i++) {
+            total += weights[i];
+            bounds[i] = total;
+        }
+        return bounds;
+    }
+
+    private static int draw(Random random, double[] bounds) {
+        double value = random.nextDouble() * bounds[bounds.length - 1];
+        for (int i = 0; i < bounds.length - 1; i++) {
+            if (value < bounds[i]) {
+                return i;
+            }
+        }
+        return bounds.length - 1;
+    }
+
+    /**
+     * Draws the fields of a valid record, with the genre and rating in mixed case as in the real input files.
+     */
+    private String[] validFields(Random random, int year, int row, String genre) {
+        String title = WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)];
+        if (random.nextDouble() < quotedTitleRate) {
+            title = "\"" + title + ", Part " + (row % 9 + 1) + "\"";
+        }
+        String rating = RATINGS[random.nextInt(RATINGS.length)];
+        return new String[]{
+                String.valueOf(year),
+                title,
+                String.valueOf(30 + random.nextInt(271)),
+                random.nextBoolean() ? genre : capitalize(genre),
+                random.nextBoolean() ? rating.toUpperCase() : rating,
+                String.format(Locale.ROOT, "%.1f", random.nextInt(101) / 10.0),
+                name(random),
+                name(random),
+                name(random),
+                name(random)};
+    }
+
+    private static String name(Random random) {
+        return FIRST_NAMES[random.nextInt(FIRST_NAMES.length)] + " " + LAST_NAMES[random.nextInt(LAST_NAMES.length)];
+    }
+
+    private static String capitalize(String text) {
+        return Character.toUpperCase(text.charAt(0)) + text.substring(1);
+    }
+
+    /**
+     * Breaks exactly one field of a valid record so that it is rejected with the given error code.
+     * The fields are validated in order, and every field before the broken one stays valid.
+     */
+    private static String breakRecord(Random random, String[] fields, ErrorCode code) {
+        int variant = random.nextInt(3);
+        switch (code) {
+            case BAD_YEAR:
+                fields[0] = variant == 0 ? "1989" : variant == 1 ? "2001" : "19x5";
+                break;
+            case BAD_TITLE:
+                fields[1] = variant == 0 ? "" : "  ";
+                break;
+            case BAD_DURATION:
+                fields[2] = variant == 0 ? "12" : variant == 1 ? "420" : "long";
+                break;
+            case BAD_GENRE:
+                fields[3] = variant == 0 ? "" : variant == 1 ? "cartoon" : "Sci fi";
+                break;
+            case BAD_RATING:
+                fields[4] = variant == 0 ? "" : variant == 1 ? "PG-15" : "X";
+                break;
+            case BAD_SCORE:
+                fields[5] = variant == 0 ? "10.5" : variant == 1 ? "-1.0" : "high";
+                break;
+            case BAD_NAME:
+                fields[6 + random.nextInt(4)] = variant == 0 ? "" : " ";
+                break;
+            default:
+                if (variant == 0) {
+                    // An unclosed quote runs to the end of the line, hiding the fields after it
+                    fields[1] = "\"" + fields[1].replace("\"", "");
+                } else {
+                    String[] kept = new String[1 + random.nextInt(8)];
+                    System.arraycopy(fields, 0, kept, 0, kept.length);
+                    return String.join(",", kept);
+                }
+        }
+        return String.join(",", fields);
+    }
+
+    /**
+     * Writes a dataset from the command line.
+     * @param args --dir=D the output directory, --rows=N, --seed=N, --years=FIRST-LAST, --genre-skew=S,
+     *             --quoted-titles=R, --reject-rate=R, and --error-mix=CODE:WEIGHT,... for the error codes.
+     */
+    public static void main(String[] args) {
+        File directory = new File(".");
+        long seed = 42;
+        for (String arg : args) {
+            if (arg.startsWith("--seed=")) {
+                seed = Long.parseLong(arg.substring("--seed=".length()));
+            }
+        }
+        DatasetGenerator generator = new DatasetGenerator(seed);
+        try {
+            for (String arg : args) {
+                String value = arg.substring(arg.indexOf('=') + 1);
+                if (arg.startsWith("--dir=")) {
+                    directory = new File(value);
+                } else if (arg.startsWith("--rows=")) {
+                    generator.rows(Integer.parseInt(value));
+                } else if (arg.startsWith("--years=")) {
+                    String[] years = value.split("-");
+                    generator.years(Integer.parseInt(years[0]), Integer.parseInt(years[1]));
+                } else if (arg.startsWith("--genre-skew=")) {
+                    generator.genreSkew(Double.parseDouble(value));
+                } else if (arg.startsWith("--quoted-titles=")) {
+                    generator.quotedTitleRate(Double.parseDouble(value));
+                } else if (arg.startsWith("--reject-rate=")) {
+                    generator.rejectRate(Double.parseDouble(value));
+                } else if (arg.startsWith("--error-mix=")) {
+                    for (String entry : value.split(",")) {
+                        String[] parts = entry.split(":");
+                        generator.errorWeight(ErrorCode.valueOf(parts[0].toUpperCase()), Double.parseDouble(parts[1]));
+                    }
+                } else if (!arg.startsWith("--seed=")) {
+                    System.err.println("Unknown option: " + arg);
+                    return;
+                }
+            }
+            Summary summary = generator.write(directory);
+            System.out.println("Wrote " + summary.getManifest() + ": " + summary);
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            System.err.println("Invalid setting: " + e.getMessage());
+        } catch (IOException e) {
+            System.err.println("Error writing the dataset: " + e.getMessage());
+        }
+    }
+}
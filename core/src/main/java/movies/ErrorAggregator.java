@@ -0,0 +1,165 @@
+// -----------------------------------------------------
+// The ErrorAggregator class summarizes the rejected records of a run instead of keeping every one of them, for
+// inputs so dirty that a full error file would outgrow the input. It counts the rejected records of every input
+// file and every error code, and keeps a few examples of each error code: the first ones found, and a uniform
+// random sample of the rest drawn by reservoir sampling with a fixed seed, so a run over the same input always
+// keeps the same examples. Records must be added from one thread at a time.
+// -----------------------------------------------------
+
+package movies;
+
+import Exceptions.ErrorCode;
+import java.io.File;
+import java.io.PrintStream;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+public class ErrorAggregator {
+
+    public static final int DEFAULT_FIRST_EXAMPLES = 5;
+    public static final int DEFAULT_SAMPLE_SIZE = 5;
+    public static final long DEFAULT_SEED = 42;
+    private static final ErrorCode[] CODES = ErrorCode.values();
+    private final int firstExamples;
+    private final int sampleSize;
+    private final Random random;
+    private final long[] codeCounts = new long[CODES.length];
+    private final Map<String, long[]> fileCounts = new LinkedHashMap<>();
+    private final List<List<ErrorRecord>> firsts = new ArrayList<>();
+    private final List<List<ErrorRecord>> samples = new ArrayList<>();
+    private long total;
+
+    /**
+     * Creates an empty summary.
+     * @param firstExamples The number of first records kept for every error code.
+     * @param sampleSize The number of later records sampled for every error code.
+     * @param seed The seed of the sampling.
+     */
+    public ErrorAggregator(int firstExamples, int sampleSize, long seed) {
+        this.firstExamples = firstExamples;
+        this.sampleSize = sampleSize;
+        this.random = new Random(seed);
+        for (int i = 0; i < CODES.length; i++) {
+            firsts.add(new ArrayList<>());
+            samples.add(new ArrayList<>());
+        }
+    }
+
+    /**
+     * Counts a rejected record, keeping it if it is one of the first of its error code or drawn into the sample.
+     * @param error The rejected record.
+     */
+    public void add(ErrorRecord error) {
+        int code = error.getErrorCode().ordinal();
+        long seen = codeCounts[code]++;
+        fileCounts.computeIfAbsent(error.getInputFile(), f -> new long[CODES.length])[code]++;
+        total++;
+        if (seen < firstExamples) {
+            firsts.get(code).add(error);
+            return;
+        }
+        // Reservoir sampling over the records that come after the first ones
+        long index = seen - firstExamples;
+        List<ErrorRecord> sample = samples.get(code);
+        if (index < sampleSize) {
+            sample.add(error);
+        } else {
+            long slot = (long) (random.nextDouble() * (index + 1));
+            if (slot < sampleSize) {
+                sample.set((int) slot, error);
+            }
+        }
+    }
+
+    /**
+     * Returns the number of rejected records counted.
+     * @return The number of records.
+     */
+    public long getTotal() {
+        return total;
+    }
+
+    /**
+     * Returns the number of rejected records with an error code.
+     * @param code The error code.
+     * @return The number of records.
+     */
+    public long getCount(ErrorCode code) {
+        return codeCounts[code.ordinal()];
+    }
+
+    /**
+     * Returns the number of rejected records of an input file.
+     * @param inputFile The name of the input file.
+     * @return The number of records.
+     */
+    public long getCount(String inputFile) {
+        long count = 0;
+        for (long codeCount : fileCounts.getOrDefault(inputFile, new long[0])) {
+            count += codeCount;
+        }
+        return count;
+    }
+
+    /**
+     * Returns the examples kept for an error code: the first records found, then the sampled ones.
+     * @param code The error code.
+     * @return The kept records.
+     */
+    public List<ErrorRecord> getExamples(ErrorCode code) {
+        List<ErrorRecord> examples = new ArrayList<>(firsts.get(code.ordinal()));
+        examples.addAll(samples.get(code.ordinal()));
+        return examples;
+    }
+
+    /**
+     * Prints the number of rejected records of every input file and error code that had any.
+     * @param out The stream to print the summary to.
+     */
+    public void printSummary(PrintStream out) {
+        List<ErrorCode> seen = new ArrayList<>();
+        for (ErrorCode code : CODES) {
+            if (codeCounts[code.ordinal()] > 0) {
+                seen.add(code);
+            }
+        }
+        int nameWidth = "Total".length();
+        for (String inputFile : fileCounts.keySet()) {
+            nameWidth = Math.max(nameWidth, fileName(inputFile).length());
+        }
+        out.println("-------------------------------");
+        out.println("   Rejected records summary    ");
+        out.println("-------------------------------");
+        StringBuilder header = new StringBuilder(String.format("%-" + nameWidth + "s", "File"));
+        for (ErrorCode code : seen) {
+            header.append(String.format(" %" + columnWidth(code) + "s", code));
+        }
+        out.println(header.append(String.format(" %10s", "Total")));
+        for (Map.Entry<String, long[]> entry : fileCounts.entrySet()) {
+            printRow(out, fileName(entry.getKey()), entry.getValue(), seen, nameWidth);
+        }
+        printRow(out, "Total", codeCounts, seen, nameWidth);
+        out.println("-------------------------------");
+    }
+
+    private static void printRow(PrintStream out, String name, long[] counts, List<ErrorCode> codes, int nameWidth) {
+        StringBuilder row = new StringBuilder(String.format("%-" + nameWidth + "s", name));
+        long total = 0;
+        for (ErrorCode code : codes) {
+            row.append(String.format(" %" + columnWidth(code) + "d", counts[code.ordinal()]));
+            total += counts[code.ordinal()];
+        }
+        out.println(row.append(String.format(" %10d", total)));
+    }
+
+    private static int columnWidth(ErrorCode code) {
+        return Math.max(code.name().length(), 8);
+    }
+
+    private static String fileName(String inputFile) {
+        return new File(inputFile).getName();
+    }
+}
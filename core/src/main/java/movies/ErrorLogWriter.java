@@ -0,0 +1,231 @@
+// -----------------------------------------------------
+// The ErrorLogWriter class writes rejected movie records to the error file from a thread of its own, so the
+// threads validating records never wait on the file. Records are handed over through a bounded queue; when the
+// queue is full, logging blocks until the writer thread catches up, which bounds the memory held by a very dirty
+// input. The writer thread writes whatever is queued in batches and flushes the file once enough bytes are
+// pending or some time has passed since the last flush, and always when the log is closed.
+// Records are written as the usual lines of text, or as one JSON object per line (see ErrorRecord).
+// -----------------------------------------------------
+
+package movies;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+public class ErrorLogWriter implements AutoCloseable {
+
+    /**
+     * The ways a rejected record can be written to the error file.
+     */
+    public enum Format {
+        TEXT, JSON;
+
+        /**
+         * Formats a rejected record as a line of the error file.
+         * @param record The rejected record.
+         * @return The line, without a line separator.
+         */
+        public String format(ErrorRecord record) {
+            return this == JSON ? record.toJson() : record.toText();
+        }
+    }
+
+    public static final int DEFAULT_CAPACITY = 8192;
+    public static final int DEFAULT_FLUSH_BYTES = 64 * 1024;
+    public static final long DEFAULT_FLUSH_MILLIS = 1000;
+    private static final int BATCH_SIZE = 1024;
+    // Queued by close to tell the writer thread that no record follows
+    private static final ErrorRecord END = new ErrorRecord("", 0, null, "", "");
+    private final BlockingQueue<ErrorRecord> queue;
+    private final Format format;
+    private final int flushBytes;
+    private final long flushNanos;
+    private final Writer writer;
+    private final Thread owner;
+    private volatile IOException failure;
+    private volatile long recordsWritten;
+    private volatile long flushes;
+    private volatile boolean closed;
+
+    /**
+     * Opens the error file with the default queue capacity and flush thresholds.
+     * @param fileName The name of the error file.
+     * @param append Whether to add to the end of the file rather than replace it.
+     * @param format How the records are written.
+     * @throws IOException If the file cannot be opened.
+     */
+    public ErrorLogWriter(String fileName, boolean append, Format format) throws IOException {
+        this(fileName, append, format, DEFAULT_CAPACITY, DEFAULT_FLUSH_BYTES, DEFAULT_FLUSH_MILLIS);
+    }
+
+    /**
+     * Opens the error file and starts the writer thread.
+     * @param fileName The name of the error file.
+     * @param append Whether to add to the end of the file rather than replace it.
+     * @param format How the records are written.
+     * @param capacity The number of records that can wait to be written before logging blocks.
+     * @param flushBytes The number of pending characters that makes the writer thread flush the file.
+     * @param flushMillis The longest time written records wait before the file is flushed.
+     * @throws IOException If the file cannot be opened.
+     */
+    public ErrorLogWriter(String fileName, boolean append, Format format, int capacity, int flushBytes,
+                          long flushMillis) throws IOException {
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.format = format;
+        this.flushBytes = flushBytes;
+        this.flushNanos = TimeUnit.MILLISECONDS.toNanos(flushMillis);
+        this.writer = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(fileName, append),
+                StandardCharsets.UTF_8), Math.max(flushBytes, 8192));
+        this.owner = new Thread(this::drain, "error-log-writer");
+        // The thread never keeps the program alive; records are only guaranteed to be written once closed
+        owner.setDaemon(true);
+        owner.start();
+    }
+
+    /**
+     * Queues a rejected record to be written, waiting for room if the queue is full.
+     * @param record The rejected record.
+     * @throws IllegalStateException If the log is closed.
+     */
+    public void log(ErrorRecord record) {
+        if (closed) {
+            throw new IllegalStateException("The error log is closed.");
+        }
+        enqueue(record);
+    }
+
+    private void enqueue(ErrorRecord record) {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                queue.put(record);
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Returns the number of records written to the file so far.
+     * @return The number of records.
+     */
+    public long getRecordsWritten() {
+        return recordsWritten;
+    }
+
+    /**
+     * Returns the number of times the file was flushed so far.
+     * @return The number of flushes.
+     */
+    public long getFlushes() {
+        return flushes;
+    }
+
+    /**
+     * Writes every queued record, flushes and closes the file, and stops the writer thread.
+     * @throws IOException The first error raised while writing the file.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        enqueue(END);
+        closed = true;
+        boolean interrupted = false;
+        while (owner.isAlive()) {
+            try {
+                owner.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    // Body of the writer thread, which owns the file
+    private void drain() {
+        List<ErrorRecord> batch = new ArrayList<>(BATCH_SIZE);
+        long pending = 0;
+        long lastFlush = System.nanoTime();
+        boolean end = false;
+        try {
+            while (!end) {
+                ErrorRecord first = pending == 0 ? queue.take()
+                        : queue.poll(Math.max(0, lastFlush + flushNanos - System.nanoTime()), TimeUnit.NANOSECONDS);
+                if (first != null) {
+                    batch.add(first);
+                    queue.drainTo(batch, BATCH_SIZE - 1);
+                }
+                for (ErrorRecord record : batch) {
+                    if (record == END) {
+                        end = true;
+                        break;
+                    }
+                    pending += write(format.format(record));
+                }
+                batch.clear();
+                if (end || pending >= flushBytes || (pending > 0 && System.nanoTime() - lastFlush >= flushNanos)) {
+                    flush();
+                    pending = 0;
+                    lastFlush = System.nanoTime();
+                }
+            }
+        } catch (InterruptedException e) {
+            // Only close stops the thread, by queuing the end marker
+        } finally {
+            try {
+                writer.close();
+            } catch (IOException e) {
+                fail(e);
+            }
+        }
+    }
+
+    private int write(String line) {
+        if (failure != null) {
+            // Keep emptying the queue after a failure so that logging threads never block
+            return 0;
+        }
+        try {
+            writer.write(line);
+            writer.write(System.lineSeparator());
+            recordsWritten++;
+        } catch (IOException e) {
+            fail(e);
+        }
+        return line.length() + 1;
+    }
+
+    private void flush() {
+        if (failure != null) {
+            return;
+        }
+        try {
+            writer.flush();
+            flushes++;
+        } catch (IOException e) {
+            fail(e);
+        }
+    }
+
+    private void fail(IOException e) {
+        if (failure == null) {
+            failure = e;
+        }
+    }
+}
@@ -0,0 +1,104 @@
+// -----------------------------------------------------
+// The ErrorRecord class describes a movie record that failed validation: the input file and line it came from,
+// the code and message of the failure and the raw text of the line. It formats itself either as the line of text
+// written to the error file, or as a structured JSON object on one line that other tools can aggregate.
+// -----------------------------------------------------
+
+package movies;
+
+import Exceptions.ErrorCode;
+
+public class ErrorRecord {
+
+    private final String inputFile;
+    private final int lineNumber;
+    private final ErrorCode errorCode;
+    private final String message;
+    private final String rawLine;
+
+    /**
+     * Creates the description of a rejected record.
+     * @param inputFile The name of the input file where the error occurred.
+     * @param lineNumber The line number in the file where the error was detected.
+     * @param errorCode The kind of validation failure.
+     * @param message The error message describing the failure.
+     * @param rawLine The text of the rejected line.
+     */
+    public ErrorRecord(String inputFile, int lineNumber, ErrorCode errorCode, String message, String rawLine) {
+        this.inputFile = inputFile;
+        this.lineNumber = lineNumber;
+        this.errorCode = errorCode;
+        this.message = message;
+        this.rawLine = rawLine;
+    }
+
+    public String getInputFile() {
+        return inputFile;
+    }
+
+    public int getLineNumber() {
+        return lineNumber;
+    }
+
+    public ErrorCode getErrorCode() {
+        return errorCode;
+    }
+
+    public String getMessage() {
+        return message;
+    }
+
+    public String getRawLine() {
+        return rawLine;
+    }
+
+    /**
+     * Returns the same error found a number of lines further down, for records whose line was counted from the
+     * start of a chunk of the input file rather than from the start of the file.
+     * @param lines The number of lines before the chunk.
+     * @return The error with its line number moved.
+     */
+    public ErrorRecord offsetLines(int lines) {
+        return lines == 0 ? this : new ErrorRecord(inputFile, lineNumber + lines, errorCode, message, rawLine);
+    }
+
+    /**
+     * Formats the error as a line of the error file.
+     * @return The file name, line number and message of the error.
+     */
+    public String toText() {
+        return "File: " + inputFile + ", Line: " + lineNumber + ", Error: " + message;
+    }
+
+    /**
+     * Formats the error as a JSON object on a single line.
+     * @return The file, line, code, message and raw line of the error as JSON.
+     */
+    public String toJson() {
+        StringBuilder json = new StringBuilder(64 + message.length() + rawLine.length());
+        json.append("{\"file\":");
+        appendJsonString(json, inputFile);
+        json.append(",\"line\":").append(lineNumber);
+        json.append(",\"code\":\"").append(errorCode).append('"');
+        json.append(",\"message\":");
+        appendJsonString(json, message);
+        json.append(",\"raw\":");
+        appendJsonString(json, rawLine);
+        return json.append('}').toString();
+    }
+
+    static void appendJsonString(StringBuilder json, String value) {
+        json.append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char ch = value.charAt(i);
+            if (ch == '"' || ch == '\\') {
+                json.append('\\').append(ch);
+            } else if (ch < ' ') {
+                json.append(String.format("\\u%04x", (int) ch));
+            } else {
+                json.append(ch);
+            }
+        }
+        json.append('"');
+    }
+}
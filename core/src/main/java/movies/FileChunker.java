@@ -0,0 +1,121 @@
+// -----------------------------------------------------
+// The FileChunker class cuts a movie records file into byte ranges that can be parsed at the same time, so a single
+// huge yearly file does not have to be read by one thread. Every cut is moved forward to the start of the next line,
+// so each line belongs to exactly one chunk and a "\r\n" terminator is never split. Records never span lines (a
+// line ending inside quotes is rejected on its own by the tokenizer), so aligning the cuts to lines is all the
+// repair quoted fields need. A chunk only knows its byte range; the line numbers of its records are found by
+// counting the lines of the chunks before it, which the caller does while merging the chunks in file order.
+// -----------------------------------------------------
+
+package movies;
+
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+public class FileChunker {
+
+    public static final long DEFAULT_CHUNK_SIZE = 32L << 20;
+    private static final int SCAN_SIZE = 8192;
+
+    /**
+     * A range of a file made of whole lines.
+     */
+    public static class Chunk {
+        private final String fileName;
+        private final long start;
+        private final long end;
+
+        public Chunk(String fileName, long start, long end) {
+            this.fileName = fileName;
+            this.start = start;
+            this.end = end;
+        }
+
+        public String getFileName() {
+            return fileName;
+        }
+
+        public long getStart() {
+            return start;
+        }
+
+        public long getEnd() {
+            return end;
+        }
+
+        /**
+         * Tells whether the chunk is the first one of its file.
+         * @return True if the chunk starts at the start of the file.
+         */
+        public boolean isFirst() {
+            return start == 0;
+        }
+    }
+
+    /**
+     * Cuts a file into chunks of about the given size, each starting at the start of a line.
+     * A file no larger than the chunk size is a single chunk.
+     * @param fileName The name of the file.
+     * @param chunkSize The number of bytes aimed at for every chunk.
+     * @return The chunks, in file order, covering the whole file.
+     * @throws IOException If the file cannot be read.
+     */
+    public static List<Chunk> split(String fileName, long chunkSize) throws IOException {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("The chunk size must be at least 1 byte.");
+        }
+        List<Chunk> chunks = new ArrayList<>();
+        try (FileChannel channel = new FileInputStream(fileName).getChannel()) {
+            long size = channel.size();
+            long start = 0;
+            while (size - start > chunkSize) {
+                long end = nextLineStart(channel, start + chunkSize, size);
+                if (end >= size) {
+                    break;
+                }
+                chunks.add(new Chunk(fileName, start, end));
+                start = end;
+            }
+            chunks.add(new Chunk(fileName, start, size));
+        }
+        return chunks;
+    }
+
+    /**
+     * Finds the start of the first line beginning at or after an offset.
+     * @param channel The file.
+     * @param offset An offset in the file, greater than 0.
+     * @param size The size of the file.
+     * @return The offset of the start of the line, or the size of the file if no line starts at or after the offset.
+     */
+    private static long nextLineStart(FileChannel channel, long offset, long size) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(SCAN_SIZE);
+        // The byte before the offset may already end a line
+        long position = offset - 1;
+        boolean carriageReturn = false;
+        while (position < size) {
+            buffer.clear();
+            int read = channel.read(buffer, position);
+            if (read <= 0) {
+                break;
+            }
+            for (int i = 0; i < read; i++) {
+                byte b = buffer.get(i);
+                if (carriageReturn) {
+                    // A "\r" followed by "\n" is a single terminator
+                    return b == '\n' ? position + i + 1 : position + i;
+                }
+                if (b == '\n') {
+                    return position + i + 1;
+                }
+                carriageReturn = b == '\r';
+            }
+            position += read;
+        }
+        return size;
+    }
+}
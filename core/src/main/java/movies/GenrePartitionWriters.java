@@ -0,0 +1,144 @@
+// -----------------------------------------------------
+// The GenrePartitionWriters class keeps one buffered writer open per genre for the whole partitioning run,
+// instead of opening, appending to and closing a genre file for every movie record.
+// Writers are opened lazily in append mode the first time a genre receives a record, flushed after every
+// batch of records, and all closed together when the run ends, even if writing failed part way through.
+// Records are written in UTF-8, the encoding part 2 reads them back with, whatever the platform encoding is.
+// It also counts the records and bytes written to every genre file so the run can be reported on.
+// -----------------------------------------------------
+
+package movies;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+
+public class GenrePartitionWriters implements AutoCloseable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final int FLUSH_BATCH = 4096;
+    private final String[] genres;
+    private final Writer[] writers;
+    private final CountingOutputStream[] streams;
+    private final long[] recordsWritten;
+
+    /**
+     * Creates the writers for the given genres. No file is opened until a genre receives its first record.
+     * @param genres The genre names; the file of each genre is named after it with a .csv extension.
+     */
+    public GenrePartitionWriters(String[] genres) {
+        this.genres = genres;
+        this.writers = new Writer[genres.length];
+        this.streams = new CountingOutputStream[genres.length];
+        this.recordsWritten = new long[genres.length];
+    }
+
+    /**
+     * Appends a movie record as one line to the file of the given genre.
+     * @param genreIndex The index of the genre.
+     * @param record The movie record in CSV format.
+     * @throws IOException If the genre file cannot be opened or written.
+     */
+    public void write(int genreIndex, String record) throws IOException {
+        Writer writer = writers[genreIndex];
+        if (writer == null) {
+            streams[genreIndex] = new CountingOutputStream(new FileOutputStream(getFileName(genreIndex), true));
+            writer = new BufferedWriter(new OutputStreamWriter(streams[genreIndex], StandardCharsets.UTF_8),
+                    BUFFER_SIZE);
+            writers[genreIndex] = writer;
+        }
+        writer.write(record);
+        writer.write(System.lineSeparator());
+        if (++recordsWritten[genreIndex] % FLUSH_BATCH == 0) {
+            writer.flush();
+        }
+    }
+
+    /**
+     * Returns the name of the file records of the given genre are written to.
+     * @param genreIndex The index of the genre.
+     * @return The genre file name.
+     */
+    public String getFileName(int genreIndex) {
+        return genres[genreIndex] + ".csv";
+    }
+
+    /**
+     * Returns the number of records written to the file of the given genre.
+     * @param genreIndex The index of the genre.
+     * @return The number of records written so far.
+     */
+    public long getRecordsWritten(int genreIndex) {
+        return recordsWritten[genreIndex];
+    }
+
+    /**
+     * Returns the number of bytes that reached the file of the given genre.
+     * Records still held in the buffer are only counted once they are flushed.
+     * @param genreIndex The index of the genre.
+     * @return The number of bytes written so far.
+     */
+    public long getBytesWritten(int genreIndex) {
+        return streams[genreIndex] == null ? 0 : streams[genreIndex].count;
+    }
+
+    /**
+     * Prints the number of records and bytes written to every genre file that received records.
+     * @param out The stream to print the summary to.
+     */
+    public void printSummary(PrintStream out) {
+        out.println("-------------------------------");
+        out.println("   Genre partitions written    ");
+        out.println("-------------------------------");
+        for (int i = 0; i < genres.length; i++) {
+            if (recordsWritten[i] > 0) {
+                out.println(getFileName(i) + ": " + recordsWritten[i] + " records, " + getBytesWritten(i) + " bytes");
+            }
+        }
+        out.println("-------------------------------");
+    }
+
+    /**
+     * Flushes and closes every open genre file. All files are closed even if one of them fails.
+     * @throws IOException The first error raised while closing a file.
+     */
+    @Override
+    public void close() throws IOException {
+        IOException failure = null;
+        for (int i = 0; i < writers.length; i++) {
+            if (writers[i] != null) {
+                try {
+                    writers[i].close();
+                } catch (IOException e) {
+                    if (failure == null) {
+                        failure = e;
+                    }
+                }
+                writers[i] = null;
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    // Counts the bytes passed through to the underlying file.
+    private static class CountingOutputStream extends FilterOutputStream {
+        long count;
+
+        CountingOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            count++;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+    }
+}
@@ -0,0 +1,126 @@
+// -----------------------------------------------------
+// The GenreSerializers class keeps one MovieColumnWriter open per genre, so validated movies can be serialized into
+// their genre file as they are parsed, without going through an intermediate genre CSV file.
+// Writers are created lazily the first time a genre receives a movie and all closed together when the run ends,
+// even if writing failed part way through. The number of movies and bytes written to each genre file are kept
+// so the run can be reported on and the part 3 manifest can list only the genres that received movies.
+// -----------------------------------------------------
+
+package movies;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintStream;
+
+public class GenreSerializers implements AutoCloseable {
+
+    private final String[] genres;
+    private final String directory;
+    private final MovieColumnWriter[] writers;
+    private final long[] recordsWritten;
+    private final long[] bytesWritten;
+
+    /**
+     * Creates the writers for the given genres. No file is created until a genre receives its first movie.
+     * @param genres The genre names; the file of each genre is named after it with a .ser extension.
+     */
+    public GenreSerializers(String[] genres) {
+        this(genres, null);
+    }
+
+    /**
+     * Creates the writers for the given genres, writing their files to a directory.
+     * @param genres The genre names; the file of each genre is named after it with a .ser extension.
+     * @param directory The directory of the genre files, or null for the current directory.
+     */
+    public GenreSerializers(String[] genres, String directory) {
+        this.genres = genres;
+        this.directory = directory;
+        this.writers = new MovieColumnWriter[genres.length];
+        this.recordsWritten = new long[genres.length];
+        this.bytesWritten = new long[genres.length];
+    }
+
+    /**
+     * Adds a movie to the serialized file of the given genre.
+     * @param genreIndex The index of the genre.
+     * @param movie The movie to serialize.
+     * @throws IOException If the genre file cannot be created or written.
+     */
+    public void write(int genreIndex, Movie movie) throws IOException {
+        if (writers[genreIndex] == null) {
+            writers[genreIndex] = new MovieColumnWriter(getFileName(genreIndex));
+        }
+        writers[genreIndex].write(movie);
+        recordsWritten[genreIndex]++;
+    }
+
+    /**
+     * Returns the name of the file the movies of the given genre are serialized to.
+     * @param genreIndex The index of the genre.
+     * @return The genre file name.
+     */
+    public String getFileName(int genreIndex) {
+        String fileName = genres[genreIndex] + ".ser";
+        return directory == null ? fileName : new File(directory, fileName).getPath();
+    }
+
+    /**
+     * Returns the number of movies serialized for the given genre.
+     * @param genreIndex The index of the genre.
+     * @return The number of movies written so far.
+     */
+    public long getRecordsWritten(int genreIndex) {
+        return recordsWritten[genreIndex];
+    }
+
+    /**
+     * Returns the size of the serialized file of the given genre, known once the writers are closed.
+     * @param genreIndex The index of the genre.
+     * @return The number of bytes written.
+     */
+    public long getBytesWritten(int genreIndex) {
+        return writers[genreIndex] == null ? bytesWritten[genreIndex] : writers[genreIndex].getBytesWritten();
+    }
+
+    /**
+     * Prints the number of movies and bytes serialized for every genre that received movies.
+     * @param out The stream to print the summary to.
+     */
+    public void printSummary(PrintStream out) {
+        out.println("-------------------------------");
+        out.println("   Genre files serialized      ");
+        out.println("-------------------------------");
+        for (int i = 0; i < genres.length; i++) {
+            if (recordsWritten[i] > 0) {
+                out.println(getFileName(i) + ": " + recordsWritten[i] + " records, " + getBytesWritten(i) + " bytes");
+            }
+        }
+        out.println("-------------------------------");
+    }
+
+    /**
+     * Completes and closes every genre file. All files are closed even if one of them fails.
+     * @throws IOException The first error raised while completing a file.
+     */
+    @Override
+    public void close() throws IOException {
+        IOException failure = null;
+        for (int i = 0; i < writers.length; i++) {
+            if (writers[i] != null) {
+                try {
+                    writers[i].close();
+                } catch (IOException e) {
+                    if (failure == null) {
+                        failure = e;
+                    }
+                }
+                bytesWritten[i] = writers[i].getBytesWritten();
+                writers[i] = null;
+            }
+        }
+        if (failure != null) {
+            throw failure;
+        }
+    }
+}
@@ -0,0 +1,250 @@
+// -----------------------------------------------------
+// The IngestState class remembers, between incremental runs of part 1, what was ingested from every input file:
+// a fingerprint of the file (its size, its last modification time and a SHA-256 hash of its content) and the
+// number of movies it contributed to every genre. An input file whose size and modification time did not change
+// is taken as unchanged; otherwise its content is hashed, so a file that was only touched is not reprocessed.
+// The contribution of every input file is kept in a directory of its own, named after a key derived from the path
+// of the file. The state also keeps the manifest as it was listed, a file listed twice included, since the genre
+// files hold the movies of such a file twice. It is stored as a text file of tab-separated lines: one per manifest
+// line, then one per input file in manifest order. A state saved before manifests were kept has no manifest.
+// -----------------------------------------------------
+
+package movies;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+public class IngestState {
+
+    private static final String HEADER = "movie-ingest-state 2";
+    private static final String HEADER_WITHOUT_MANIFEST = "movie-ingest-state 1";
+    private static final String MANIFEST_LINE = "manifest";
+    private static final String FILE_LINE = "file";
+    private final Map<String, Entry> entries = new LinkedHashMap<>();
+    private List<String> manifest = new ArrayList<>();
+
+    /**
+     * What was ingested from one input file.
+     */
+    public static class Entry {
+        final String inputFile;
+        final long size;
+        final long modified;
+        final String hash;
+        final long[] genreCounts;
+
+        Entry(String inputFile, long size, long modified, String hash, long[] genreCounts) {
+            this.inputFile = inputFile;
+            this.size = size;
+            this.modified = modified;
+            this.hash = hash;
+            this.genreCounts = genreCounts;
+        }
+
+        /**
+         * Returns the name of the directory holding the contribution of the input file.
+         * @return The key of the input file.
+         */
+        public String getKey() {
+            return key(inputFile);
+        }
+
+        /**
+         * Returns the number of movies the input file contributed to a genre.
+         * @param genreIndex The index of the genre.
+         * @return The number of movies.
+         */
+        public long getGenreCount(int genreIndex) {
+            return genreIndex < genreCounts.length ? genreCounts[genreIndex] : 0;
+        }
+
+        /**
+         * Returns a copy of this entry with another modification time, for a file touched without being changed.
+         * @param modified The new modification time.
+         * @return The updated entry.
+         */
+        Entry touched(long modified) {
+            return new Entry(inputFile, size, modified, hash, genreCounts);
+        }
+    }
+
+    /**
+     * Loads the state saved by a previous run.
+     * @param stateFile The state file.
+     * @return The saved state, or an empty state if the file does not exist.
+     * @throws IOException If the file cannot be read or is not a state file.
+     */
+    public static IngestState load(File stateFile) throws IOException {
+        IngestState state = new IngestState();
+        if (!stateFile.exists()) {
+            return state;
+        }
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(new FileInputStream(stateFile),
+                StandardCharsets.UTF_8))) {
+            String header = reader.readLine();
+            boolean withManifest = HEADER.equals(header);
+            if (!withManifest && !HEADER_WITHOUT_MANIFEST.equals(header)) {
+                throw new IOException("Unknown format of ingestion state file " + stateFile);
+            }
+            if (!withManifest) {
+                state.manifest = null;
+            }
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split("\t");
+                if (withManifest && fields.length == 2 && fields[0].equals(MANIFEST_LINE)) {
+                    state.manifest.add(fields[1]);
+                    continue;
+                }
+                if (withManifest && fields.length == 6 && fields[0].equals(FILE_LINE)) {
+                    fields = Arrays.copyOfRange(fields, 1, fields.length);
+                } else if (withManifest || fields.length != 5) {
+                    throw new IOException("Malformed line in ingestion state file " + stateFile + ": " + line);
+                }
+                String[] counts = fields[4].split(",");
+                long[] genreCounts = new long[counts.length];
+                try {
+                    for (int i = 0; i < counts.length; i++) {
+                        genreCounts[i] = Long.parseLong(counts[i]);
+                    }
+                    state.put(new Entry(fields[0], Long.parseLong(fields[1]), Long.parseLong(fields[2]), fields[3],
+                            genreCounts));
+                } catch (NumberFormatException e) {
+                    throw new IOException("Malformed line in ingestion state file " + stateFile + ": " + line);
+                }
+            }
+        }
+        return state;
+    }
+
+    /**
+     * Saves the state, replacing the previous state file only once the new one is complete.
+     * @param stateFile The state file.
+     * @throws IOException If the file cannot be written.
+     */
+    public void save(File stateFile) throws IOException {
+        File temporary = new File(stateFile.getPath() + ".tmp");
+        try (PrintWriter writer = new PrintWriter(new OutputStreamWriter(new FileOutputStream(temporary),
+                StandardCharsets.UTF_8))) {
+            writer.println(HEADER);
+            for (String inputFile : manifest) {
+                writer.println(MANIFEST_LINE + "\t" + inputFile);
+            }
+            for (Entry entry : entries.values()) {
+                StringBuilder counts = new StringBuilder();
+                for (int i = 0; i < entry.genreCounts.length; i++) {
+                    counts.append(i == 0 ? "" : ",").append(entry.genreCounts[i]);
+                }
+                writer.println(FILE_LINE + "\t" + entry.inputFile + "\t" + entry.size + "\t" + entry.modified + "\t" + entry.hash
+                        + "\t" + counts);
+            }
+            if (writer.checkError()) {
+                throw new IOException("Error writing ingestion state file " + temporary);
+            }
+        }
+        Files.move(temporary.toPath(), stateFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+    }
+
+    /**
+     * Returns what was ingested from an input file.
+     * @param inputFile The path of the input file.
+     * @return The entry of the file, or null if it was not ingested.
+     */
+    public Entry get(String inputFile) {
+        return entries.get(inputFile);
+    }
+
+    /**
+     * Records what was ingested from an input file, after the files recorded before it.
+     * @param entry The entry of the file.
+     */
+    public void put(Entry entry) {
+        entries.put(entry.inputFile, entry);
+    }
+
+    /**
+     * Returns the input files of the state, in the order they were recorded.
+     * @return The paths of the input files.
+     */
+    public List<String> getInputFiles() {
+        return new ArrayList<>(entries.keySet());
+    }
+
+    /**
+     * Records the input files listed by the manifest of the run, in order and with any file listed twice.
+     * @param inputFiles The paths of the input files, as listed.
+     */
+    public void setManifest(List<String> inputFiles) {
+        manifest = new ArrayList<>(inputFiles);
+    }
+
+    /**
+     * Returns the input files listed by the manifest of the run that saved the state.
+     * @return The paths of the input files as listed, or null if the state was saved without its manifest.
+     */
+    public List<String> getManifest() {
+        return manifest == null ? null : new ArrayList<>(manifest);
+    }
+
+    /**
+     * Returns whether no input file was ingested.
+     * @return True if the state is empty.
+     */
+    public boolean isEmpty() {
+        return entries.isEmpty();
+    }
+
+    /**
+     * Derives the name of the directory holding the contribution of an input file from its path.
+     * @param inputFile The path of the input file.
+     * @return The key of the input file.
+     */
+    public static String key(String inputFile) {
+        String name = new File(inputFile).getName().replaceAll("[^A-Za-z0-9._-]", "_");
+        return name + "-" + toHex(digest().digest(inputFile.getBytes(StandardCharsets.UTF_8))).substring(0, 12);
+    }
+
+    /**
+     * Hashes the content of a file.
+     * @param file The file.
+     * @return The SHA-256 hash of the content, in hexadecimal.
+     * @throws IOException If the file cannot be read.
+     */
+    public static String hash(File file) throws IOException {
+        MessageDigest digest = digest();
+        byte[] buffer = new byte[64 * 1024];
+        try (InputStream in = new FileInputStream(file)) {
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return toHex(digest.digest());
+    }
+
+    private static MessageDigest digest() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            // Every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static String toHex(byte[] bytes) {
+        StringBuilder hex = new StringBuilder(bytes.length * 2);
+        for (byte b : bytes) {
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        }
+        return hex.toString();
+    }
+}
@@ -0,0 +1,104 @@
+// -----------------------------------------------------
+// The Main class serves as the driver class for a movie management application that utilizes the MovieManager class
+// to perform a series of operations related to movie record processing.
+// -----------------------------------------------------
+
+package movies;
+
+public class Main {
+    public static void main(String[] args) {
+        // part 1’s manifest file
+        String part1_manifest = "part1_manifest.txt";
+        // part 2’s manifest file
+        String part2_manifest = "part2_manifest.txt";
+        // part 3’s manifest file
+        String part3_manifest = "part3_manifest.txt";
+
+        MovieManager movieManager = new MovieManager();
+        // optional settings, e.g. --threads=4 to parse the part 1 input files in parallel,
+        // --genre-threads=N to serialize and load the genre files of parts 2 and 3 in parallel,
+        // --chunk-size=N to cut input files larger than N bytes into chunks parsed in parallel too,
+        // --pipeline to run parts 1 and 2 as a single pass and --keep-genre-csv to still write the genre CSV files,
+        // --incremental to only reprocess the input files that changed since the last incremental run,
+        // --error-format=json to write the rejected records as JSON objects, --aggregate-errors[=first,sample,seed]
+        // to only write a few examples of every kind of rejected record followed by a summary table (not with
+        // --incremental),
+        // --query="..." to search the serialized movies before navigating them,
+        // --name-pool=N to share director and actor names through a pool of N slots, or not at all with 0,
+        // --store=columnar or --store=off-heap to load the serialized movies into columnar or off-heap stores before
+        // searching and navigating them, instead of mapping them (--store=mapped),
+        // --metrics=FILE to write the metrics of the run to a file at the end, as JSON or with
+        // --metrics-format=prometheus in the Prometheus text format
+        boolean pipeline = false;
+        boolean incremental = false;
+        boolean keepGenreCsv = false;
+        boolean aggregateErrors = false;
+        String query = null;
+        String metricsFile = null;
+        PipelineMetrics.Format metricsFormat = PipelineMetrics.Format.JSON;
+        for (String arg : args) {
+            if (arg.startsWith("--threads=")) {
+                movieManager.setIngestionThreads(Integer.parseInt(arg.substring("--threads=".length())));
+            } else if (arg.startsWith("--genre-threads=")) {
+                movieManager.setGenreThreads(Integer.parseInt(arg.substring("--genre-threads=".length())));
+            } else if (arg.startsWith("--chunk-size=")) {
+                movieManager.setChunkSize(Long.parseLong(arg.substring("--chunk-size=".length())));
+            } else if (arg.equals("--pipeline")) {
+                pipeline = true;
+            } else if (arg.equals("--incremental")) {
+                incremental = true;
+            } else if (arg.equals("--keep-genre-csv")) {
+                keepGenreCsv = true;
+            } else if (arg.startsWith("--error-format=")) {
+                movieManager.setErrorFormat(ErrorLogWriter.Format.valueOf(
+                        arg.substring("--error-format=".length()).toUpperCase()));
+            } else if (arg.equals("--aggregate-errors")) {
+                aggregateErrors = true;
+                movieManager.setErrorAggregation(ErrorAggregator.DEFAULT_FIRST_EXAMPLES,
+                        ErrorAggregator.DEFAULT_SAMPLE_SIZE, ErrorAggregator.DEFAULT_SEED);
+            } else if (arg.startsWith("--aggregate-errors=")) {
+                aggregateErrors = true;
+                String[] settings = arg.substring("--aggregate-errors=".length()).split(",");
+                movieManager.setErrorAggregation(Integer.parseInt(settings[0]),
+                        settings.length > 1 ? Integer.parseInt(settings[1]) : ErrorAggregator.DEFAULT_SAMPLE_SIZE,
+                        settings.length > 2 ? Long.parseLong(settings[2]) : ErrorAggregator.DEFAULT_SEED);
+            } else if (arg.startsWith("--metrics=")) {
+                metricsFile = arg.substring("--metrics=".length());
+            } else if (arg.startsWith("--metrics-format=")) {
+                metricsFormat = PipelineMetrics.Format.valueOf(arg.substring("--metrics-format=".length()).toUpperCase());
+            } else if (arg.startsWith("--name-pool=")) {
+                int capacity = Integer.parseInt(arg.substring("--name-pool=".length()));
+                movieManager.setNamePool(capacity > 0 ? new NamePool(capacity) : null);
+            } else if (arg.startsWith("--store=")) {
+                movieManager.setStoreType(MovieManager.StoreType.valueOf(
+                        arg.substring("--store=".length()).toUpperCase().replace('-', '_')));
+            } else if (arg.startsWith("--query=")) {
+                query = arg.substring("--query=".length());
+            } else {
+                System.err.println("Unknown option: " + arg);
+            }
+        }
+        if (incremental && aggregateErrors) {
+            // Unchanged input files are not read again, so their rejected records could not be summarized
+            System.err.println("--aggregate-errors cannot be used with --incremental.");
+            return;
+        }
+        if (incremental) {
+            movieManager.do_incremental(part1_manifest);  // partition and serialize the changed input files
+        } else if (pipeline) {
+            movieManager.do_pipeline(part1_manifest, keepGenreCsv);  // partition and serialize
+        } else {
+            movieManager.do_part1(part1_manifest);  // partition
+            movieManager.do_part2(part2_manifest);  // serialize
+        }
+        // The genre stores opened by the query are navigated without reading their files again
+        MovieStore[] catalog = new MovieStore[CodeTable.GENRES.size()];
+        if (query != null) {
+            movieManager.runQuery(part3_manifest, query, catalog);  // search
+        }
+        movieManager.do_part3(part3_manifest, catalog);  // deserialize and navigate
+        if (metricsFile != null) {
+            movieManager.writeMetrics(metricsFile, metricsFormat);  // export the metrics of the run
+        }
+    }
+}
@@ -0,0 +1,126 @@
+// -----------------------------------------------------
+// The MappedMovieStore class gives access to the movies of a genre file without loading the file.
+// Opening the store only reads the header and footer of the file, so it takes about the same time whatever the size
+// of the genre. A block of the file is memory-mapped the first time one of its movies is asked for, and a movie is
+// only decoded when it is asked for; the decoded movies are kept, so the heap holds the movies that were viewed
+// and nothing else. The year, duration and score of a movie can be read straight from their columns without
+// decoding the movie. The statistics written in the footer of the file are available for the file and for every
+// block without mapping it.
+// -----------------------------------------------------
+
+package movies;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.Map;
+
+public class MappedMovieStore implements MovieStore, Closeable {
+
+    private final MovieColumnFile file;
+    private final ByteBuffer[] blocks;
+    private final Map<Integer, Movie> viewed = new HashMap<>();
+
+    private MappedMovieStore(MovieColumnFile file) {
+        this.file = file;
+        this.blocks = new ByteBuffer[file.getBlockCount()];
+    }
+
+    /**
+     * Opens a store over a genre file written by MovieColumnWriter.
+     * @param fileName The name of the genre file.
+     * @return The store, which keeps the file open until it is closed.
+     * @throws IOException If the file cannot be read or is not a complete movie file.
+     */
+    public static MappedMovieStore open(String fileName) throws IOException {
+        return open(fileName, null);
+    }
+
+    /**
+     * Opens a store over a genre file written by MovieColumnWriter, sharing the names of its movies through a pool.
+     * @param fileName The name of the genre file.
+     * @param namePool The pool the names are looked up in as they are decoded, or null for none.
+     * @return The store, which keeps the file open until it is closed.
+     * @throws IOException If the file cannot be read or is not a complete movie file.
+     */
+    public static MappedMovieStore open(String fileName, NamePool namePool) throws IOException {
+        return new MappedMovieStore(MovieColumnFile.open(fileName, namePool));
+    }
+
+    @Override
+    public int size() {
+        return file.size();
+    }
+
+    @Override
+    public Movie get(int index) {
+        if (index < 0 || index >= file.size()) {
+            throw new IndexOutOfBoundsException("Movie index " + index + " out of bounds for " + file.size() + " movies");
+        }
+        Movie movie = viewed.get(index);
+        if (movie == null) {
+            try {
+                movie = file.decode(block(index), file.getBlockRows(index / file.getBlockSize()),
+                        index % file.getBlockSize());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            viewed.put(index, movie);
+        }
+        return movie;
+    }
+
+    @Override
+    public int year(int index) {
+        return block(index).getInt(4 + 4 * (index % file.getBlockSize()));
+    }
+
+    @Override
+    public int duration(int index) {
+        int rows = file.getBlockRows(index / file.getBlockSize());
+        return block(index).getShort(MovieColumnFile.durationOffset(rows) + 2 * (index % file.getBlockSize()));
+    }
+
+    @Override
+    public double score(int index) {
+        int rows = file.getBlockRows(index / file.getBlockSize());
+        return block(index).getDouble(MovieColumnFile.scoreOffset(rows) + 8 * (index % file.getBlockSize()));
+    }
+
+    @Override
+    public MovieStats getStats() {
+        return file.getStats();
+    }
+
+    @Override
+    public int getBlockSize() {
+        return file.getBlockSize();
+    }
+
+    @Override
+    public MovieStats getBlockStats(int block) {
+        return file.getBlockStats(block);
+    }
+
+    /**
+     * Returns the block holding a movie, mapping it on first use. Every block but the last one is full.
+     */
+    private ByteBuffer block(int index) {
+        int block = index / file.getBlockSize();
+        if (blocks[block] == null) {
+            try {
+                blocks[block] = file.mapBlock(block);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        return blocks[block];
+    }
+
+    @Override
+    public void close() throws IOException {
+        file.close();
+    }
+}
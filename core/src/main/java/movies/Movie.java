@@ -3,8 +3,12 @@
 // converted into a stream of bytes for storage or transmission to another part of a system.
 // It provides constructors to initialize the attributes, getter and setter methods to access and modify them,
 // and overrides the equals and toString methods from the Object class for comparison and string representation.
+// Alongside the genre and rating text, a movie keeps their codes in CodeTable.GENRES and CodeTable.RATINGS,
+// so the genre a movie belongs to can be found without comparing strings.
 // -----------------------------------------------------
 
+package movies;
+
 import java.util.Objects;
 import java.io.Serializable;
 
@@ -19,9 +23,17 @@ public class Movie implements Serializable{
     String actor1;
     String actor2;
     String actor3;
+    byte genreId;
+    byte ratingId;
 
     public Movie(int year, String title, int duration, String genres, String rating, double score,
                  String director, String actor1, String actor2, String actor3) {
+        this(year, title, duration, genres, CodeTable.GENRES.lookup(genres), rating, CodeTable.RATINGS.lookup(rating),
+                score, director, actor1, actor2, actor3);
+    }
+
+    public Movie(int year, String title, int duration, String genres, int genreId, String rating, int ratingId,
+                 double score, String director, String actor1, String actor2, String actor3) {
         this.year = year;
         this.title = title;
         this.duration = duration;
@@ -32,6 +44,8 @@ public class Movie implements Serializable{
         this.actor1 = actor1;
         this.actor2 = actor2;
         this.actor3 = actor3;
+        this.genreId = (byte) genreId;
+        this.ratingId = (byte) ratingId;
     }
 
     public int getYear() {
@@ -64,6 +78,11 @@ public class Movie implements Serializable{
 
     public void setGenres(String genres) {
         this.genres = genres;
+        this.genreId = (byte) CodeTable.GENRES.lookup(genres);
+    }
+
+    public int getGenreId() {
+        return genreId;
     }
 
     public String getRating() {
@@ -72,6 +91,11 @@ public class Movie implements Serializable{
 
     public void setRating(String rating) {
         this.rating = rating;
+        this.ratingId = (byte) CodeTable.RATINGS.lookup(rating);
+    }
+
+    public int getRatingId() {
+        return ratingId;
     }
 
     public double getScore() {
@@ -0,0 +1,358 @@
+// -----------------------------------------------------
+// The MovieColumnFile class reads the binary movie files written by MovieColumnWriter.
+// Opening a file only reads its header and footer. Blocks and the dictionary of distinct strings are memory-mapped
+// when first needed, and a dictionary string is only decoded the first time a movie refers to it. Every movie of a
+// file shares the dictionary strings, so a name that appears in many records is held in memory once; with a NamePool,
+// it is also held once across the files.
+// The statistics of the file and of every block are read with the footer, so they are available without reading
+// any movie. Files of the first version of the format, which have no statistics, can still be read.
+// An open file is meant to be read by one thread at a time.
+// -----------------------------------------------------
+
+package movies;
+
+import java.io.*;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+
+public class MovieColumnFile implements Closeable {
+
+    // Columns holding dictionary references: genre, rating, director, actor1, actor2 and actor3
+    static final int REFERENCE_COLUMNS = 6;
+    private static final int TRAILER_SIZE = 12;
+    private final String fileName;
+    private final FileChannel channel;
+    private final int blockSize;
+    private final long[] blockOffsets;
+    private final int[] blockRows;
+    private final long dictionaryOffset;
+    private final long footerOffset;
+    private final int size;
+    private final MovieStats stats;
+    private final MovieStats[] blockStats;
+    private final NamePool namePool;
+    private MappedByteBuffer dictionaryBuffer;
+    private String[] dictionary;
+
+    private MovieColumnFile(String fileName, NamePool namePool) throws IOException {
+        this.fileName = fileName;
+        this.namePool = namePool;
+        this.channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ);
+        try {
+            long fileSize = channel.size();
+            if (fileSize < 12 + TRAILER_SIZE) {
+                throw new IOException("File " + fileName + " is too short to be a movie file.");
+            }
+            ByteBuffer header = read(0, 12);
+            if (header.getInt() != MovieColumnWriter.MAGIC) {
+                throw new IOException("File " + fileName + " is not a movie file.");
+            }
+            int version = header.getInt();
+            if (version != 1 && version != MovieColumnWriter.VERSION) {
+                throw new IOException("Unsupported version " + version + " of movie file " + fileName + ".");
+            }
+            blockSize = header.getInt();
+            ByteBuffer trailer = read(fileSize - TRAILER_SIZE, TRAILER_SIZE);
+            footerOffset = trailer.getLong();
+            if (trailer.getInt() != MovieColumnWriter.MAGIC) {
+                throw new IOException("Movie file " + fileName + " is incomplete.");
+            }
+            if (blockSize < 1 || footerOffset < 12 || footerOffset > fileSize - TRAILER_SIZE) {
+                throw corrupt();
+            }
+            ByteBuffer footer = read(footerOffset, (int) (fileSize - TRAILER_SIZE - footerOffset));
+            int blockCount = footer.getInt();
+            blockOffsets = new long[blockCount];
+            blockRows = new int[blockCount];
+            blockStats = version == 1 ? null : new MovieStats[blockCount];
+            for (int i = 0; i < blockCount; i++) {
+                blockOffsets[i] = footer.getLong();
+                blockRows[i] = footer.getInt();
+                if (blockStats != null) {
+                    blockStats[i] = MovieStats.read(footer);
+                }
+            }
+            stats = version == 1 ? null : MovieStats.read(footer);
+            long totalRows = footer.getLong();
+            if (totalRows > Integer.MAX_VALUE) {
+                throw new IOException("Movie file " + fileName + " has too many rows.");
+            }
+            size = (int) totalRows;
+            dictionaryOffset = footer.getLong();
+            checkLayout();
+        } catch (BufferUnderflowException e) {
+            channel.close();
+            throw corrupt();
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    /**
+     * Checks that the blocks described by the footer lie one after the other between the header and the dictionary,
+     * are large enough for their rows, and hold every row of the file, so that reading a movie stays within its
+     * block. The content of the blocks is only checked as movies are decoded.
+     * @throws IOException If the footer does not describe the file.
+     */
+    private void checkLayout() throws IOException {
+        long offset = 12;
+        long rows = 0;
+        for (int i = 0; i < blockOffsets.length; i++) {
+            long end = i + 1 < blockOffsets.length ? blockOffsets[i + 1] : dictionaryOffset;
+            if (blockOffsets[i] != offset || blockRows[i] < 1 || blockRows[i] > blockSize
+                    || end - blockOffsets[i] < titleHeapOffset(blockRows[i])) {
+                throw corrupt();
+            }
+            offset = end;
+            rows += blockRows[i];
+        }
+        if (rows != size || dictionaryOffset < offset || dictionaryOffset + 4 > footerOffset) {
+            throw corrupt();
+        }
+    }
+
+    private IOException corrupt() {
+        return new IOException("Movie file " + fileName + " is corrupt.");
+    }
+
+    /**
+     * Opens a movie file, reading only its header and footer.
+     * @param fileName The name of the file to open.
+     * @return The opened file.
+     * @throws IOException If the file cannot be read or is not a complete movie file.
+     */
+    public static MovieColumnFile open(String fileName) throws IOException {
+        return new MovieColumnFile(fileName, null);
+    }
+
+    /**
+     * Opens a movie file, reading only its header and footer, whose dictionary strings are shared through a pool
+     * with the other files opened with the same pool.
+     * @param fileName The name of the file to open.
+     * @param namePool The pool the dictionary strings are looked up in as they are decoded, or null for none.
+     * @return The opened file.
+     * @throws IOException If the file cannot be read or is not a complete movie file.
+     */
+    public static MovieColumnFile open(String fileName, NamePool namePool) throws IOException {
+        return new MovieColumnFile(fileName, namePool);
+    }
+
+    /**
+     * Writes an array of movies to a movie file.
+     * @param movies The movies to write.
+     * @param fileName The name of the file to write.
+     * @throws IOException If the file cannot be written.
+     */
+    public static void write(Movie[] movies, String fileName) throws IOException {
+        try (MovieColumnWriter writer = new MovieColumnWriter(fileName)) {
+            for (Movie movie : movies) {
+                writer.write(movie);
+            }
+        }
+    }
+
+    /**
+     * Reads every movie of a movie file.
+     * @param fileName The name of the file to read.
+     * @return The movies, in the order they were written.
+     * @throws IOException If the file cannot be read or is not a complete movie file.
+     */
+    public static Movie[] readAll(String fileName) throws IOException {
+        return readAll(fileName, null);
+    }
+
+    /**
+     * Reads every movie of a movie file, sharing its dictionary strings through a pool.
+     * @param fileName The name of the file to read.
+     * @param namePool The pool the dictionary strings are looked up in, or null for none.
+     * @return The movies, in the order they were written.
+     * @throws IOException If the file cannot be read or is not a complete movie file.
+     */
+    public static Movie[] readAll(String fileName, NamePool namePool) throws IOException {
+        try (MovieColumnFile file = open(fileName, namePool)) {
+            return file.readAll();
+        }
+    }
+
+    /**
+     * Returns the number of movies in the file.
+     * @return The number of rows.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the statistics of the whole file.
+     * @return The statistics, or null if the file was written without them.
+     */
+    public MovieStats getStats() {
+        return stats;
+    }
+
+    /**
+     * Returns the statistics of a block.
+     * @param block The index of the block.
+     * @return The statistics, or null if the file was written without them.
+     */
+    public MovieStats getBlockStats(int block) {
+        return blockStats == null ? null : blockStats[block];
+    }
+
+    /**
+     * Decodes every movie of the file.
+     * @return The movies, in the order they were written.
+     * @throws IOException If the file cannot be read.
+     */
+    public Movie[] readAll() throws IOException {
+        Movie[] movies = new Movie[size];
+        int index = 0;
+        for (int b = 0; b < blockOffsets.length; b++) {
+            ByteBuffer block = mapBlock(b);
+            for (int row = 0; row < blockRows[b]; row++) {
+                movies[index++] = decode(block, blockRows[b], row);
+            }
+        }
+        return movies;
+    }
+
+    /**
+     * Decodes a movie from a block.
+     * @param block The block, starting at position 0.
+     * @param rows The number of rows in the block.
+     * @param row The row of the movie within the block.
+     * @return The decoded movie.
+     * @throws IOException If the dictionary cannot be read, or the block or the dictionary is corrupt.
+     */
+    Movie decode(ByteBuffer block, int rows, int row) throws IOException {
+        try {
+            return decodeMovie(block, rows, row);
+        } catch (IndexOutOfBoundsException | IllegalArgumentException e) {
+            // An offset or reference read from a corrupt block or dictionary points out of it
+            throw corrupt();
+        }
+    }
+
+    private Movie decodeMovie(ByteBuffer block, int rows, int row) throws IOException {
+        int referencesOffset = referencesOffset(rows);
+        int titleOffsets = titleOffsetsOffset(rows);
+        int titleStart = block.getInt(titleOffsets + 4 * row);
+        int titleEnd = block.getInt(titleOffsets + 4 * row + 4);
+        String title = decodeString(block, titleHeapOffset(rows) + titleStart, titleEnd - titleStart);
+        return new Movie(
+                block.getInt(4 + 4 * row),
+                title,
+                block.getShort(durationOffset(rows) + 2 * row),
+                dictionaryEntry(block.getInt(referencesOffset + 4 * row)),
+                dictionaryEntry(block.getInt(referencesOffset + 4 * (rows + row))),
+                block.getDouble(scoreOffset(rows) + 8 * row),
+                dictionaryEntry(block.getInt(referencesOffset + 4 * (2 * rows + row))),
+                dictionaryEntry(block.getInt(referencesOffset + 4 * (3 * rows + row))),
+                dictionaryEntry(block.getInt(referencesOffset + 4 * (4 * rows + row))),
+                dictionaryEntry(block.getInt(referencesOffset + 4 * (5 * rows + row))));
+    }
+
+    /**
+     * Returns a string of the dictionary, mapping the dictionary and decoding the string on first use.
+     * @param reference The reference of the string.
+     * @return The dictionary string.
+     * @throws IOException If the dictionary cannot be mapped.
+     */
+    String dictionaryEntry(int reference) throws IOException {
+        if (dictionary == null) {
+            dictionaryBuffer = channel.map(FileChannel.MapMode.READ_ONLY, dictionaryOffset, footerOffset - dictionaryOffset);
+            dictionary = new String[dictionaryBuffer.getInt(0)];
+        }
+        String entry = dictionary[reference];
+        if (entry == null) {
+            int start = dictionaryBuffer.getInt(4 + 4 * reference);
+            int end = dictionaryBuffer.getInt(8 + 4 * reference);
+            entry = decodeString(dictionaryBuffer, 4 + 4 * (dictionary.length + 1) + start, end - start);
+            if (namePool != null) {
+                // Every file has its own dictionary, so the pool shares a name between the files
+                entry = namePool.intern(entry);
+            }
+            dictionary[reference] = entry;
+        }
+        return entry;
+    }
+
+    /**
+     * Maps a whole block into memory. The mapping stays valid after the file is closed.
+     * @param block The index of the block.
+     * @return The block, starting at position 0.
+     * @throws IOException If the block cannot be mapped.
+     */
+    ByteBuffer mapBlock(int block) throws IOException {
+        long end = block + 1 < blockOffsets.length ? blockOffsets[block + 1] : dictionaryOffset;
+        return channel.map(FileChannel.MapMode.READ_ONLY, blockOffsets[block], end - blockOffsets[block]);
+    }
+
+    int getBlockCount() {
+        return blockOffsets.length;
+    }
+
+    int getBlockSize() {
+        return blockSize;
+    }
+
+    int getBlockRows(int block) {
+        return blockRows[block];
+    }
+
+    private ByteBuffer read(long offset, int length) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer, offset + buffer.position()) < 0) {
+                throw new EOFException("Unexpected end of movie file " + fileName + ".");
+            }
+        }
+        buffer.flip();
+        return buffer;
+    }
+
+    static String decodeString(ByteBuffer buffer, int offset, int length) {
+        // Checked before allocating, as a corrupt length could ask for any amount of memory
+        Objects.checkFromIndexSize(offset, length, buffer.limit());
+        if (buffer.hasArray()) {
+            return new String(buffer.array(), buffer.arrayOffset() + offset, length, StandardCharsets.UTF_8);
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(offset, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // Offsets of the columns within a block of the given number of rows
+
+    static int durationOffset(int rows) {
+        return 4 + 4 * rows;
+    }
+
+    static int scoreOffset(int rows) {
+        return 4 + 6 * rows;
+    }
+
+    static int referencesOffset(int rows) {
+        return 4 + 14 * rows;
+    }
+
+    static int titleOffsetsOffset(int rows) {
+        return 4 + (14 + 4 * REFERENCE_COLUMNS) * rows;
+    }
+
+    static int titleHeapOffset(int rows) {
+        return titleOffsetsOffset(rows) + 4 * (rows + 1);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -0,0 +1,228 @@
+// -----------------------------------------------------
+// The MovieColumnWriter class writes movie records to a compact, versioned binary file that replaces Java object
+// serialization of Movie arrays. Records are grouped into blocks of a fixed number of rows, and inside a block each
+// field is stored as its own column: years as ints, durations as shorts, scores as doubles, the genre, rating,
+// director and actors as int references into a dictionary of distinct strings shared by the whole file, and the
+// titles as offsets into a heap of UTF-8 bytes. Only one block is held in memory, so any number of movies can be
+// written one at a time. The footer summarizes every block and the whole file (see MovieStats), so a reader can
+// count movies and rule out blocks for a range condition from the footer alone.
+//
+// File layout (all numbers big-endian):
+//   header      int magic, int version, int rows per block
+//   blocks      int rows, int[rows] year, short[rows] duration, double[rows] score, int[rows] genre,
+//               int[rows] rating, int[rows] director, int[rows] actor1, int[rows] actor2, int[rows] actor3,
+//               int[rows + 1] title offsets, title bytes
+//   dictionary  int count, int[count + 1] string offsets, string bytes
+//   footer      int block count, (long offset, int rows, stats) per block, file stats, long total rows,
+//               long dictionary offset
+//   stats       int rows, int min year, int max year, int min duration, int max duration, double min score,
+//               double max score, int rating count, int[rating count] movies per rating code then other ratings
+//   trailer     long footer offset, int magic
+// -----------------------------------------------------
+
+package movies;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class MovieColumnWriter implements AutoCloseable {
+
+    public static final int MAGIC = 0x4D564346; // "MVCF"
+    public static final int VERSION = 2;
+    public static final int DEFAULT_BLOCK_SIZE = 4096;
+    private final OutputStream out;
+    private final int blockSize;
+    private final int[] years;
+    private final short[] durations;
+    private final double[] scores;
+    private final int[][] references;
+    private final byte[][] titles;
+    private int rows;
+    private long position;
+    private long totalRows;
+    private final Map<String, Integer> dictionaryIds = new HashMap<>();
+    private final List<String> dictionary = new ArrayList<>();
+    private final List<long[]> blocks = new ArrayList<>();
+    private final List<MovieStats> blockStats = new ArrayList<>();
+    private MovieStats currentStats = new MovieStats();
+    private final MovieStats fileStats = new MovieStats();
+    private boolean closed;
+
+    /**
+     * Creates the file and writes its header, using the default number of rows per block.
+     * @param fileName The name of the file to write.
+     * @throws IOException If the file cannot be created.
+     */
+    public MovieColumnWriter(String fileName) throws IOException {
+        this(fileName, DEFAULT_BLOCK_SIZE);
+    }
+
+    /**
+     * Creates the file and writes its header.
+     * @param fileName The name of the file to write.
+     * @param blockSize The number of rows per block.
+     * @throws IOException If the file cannot be created.
+     */
+    public MovieColumnWriter(String fileName, int blockSize) throws IOException {
+        this.out = new BufferedOutputStream(new FileOutputStream(fileName), 64 * 1024);
+        this.blockSize = blockSize;
+        this.years = new int[blockSize];
+        this.durations = new short[blockSize];
+        this.scores = new double[blockSize];
+        this.references = new int[MovieColumnFile.REFERENCE_COLUMNS][blockSize];
+        this.titles = new byte[blockSize][];
+        ByteBuffer header = ByteBuffer.allocate(12);
+        header.putInt(MAGIC).putInt(VERSION).putInt(blockSize);
+        writeBuffer(header.flip());
+    }
+
+    /**
+     * Adds a movie to the file.
+     * @param movie The movie to write.
+     * @throws IOException If a full block cannot be written.
+     */
+    public void write(Movie movie) throws IOException {
+        years[rows] = movie.getYear();
+        durations[rows] = (short) movie.getDuration();
+        scores[rows] = movie.getScore();
+        references[0][rows] = dictionaryId(movie.getGenres());
+        references[1][rows] = dictionaryId(movie.getRating());
+        references[2][rows] = dictionaryId(movie.getDirector());
+        references[3][rows] = dictionaryId(movie.getActor1());
+        references[4][rows] = dictionaryId(movie.getActor2());
+        references[5][rows] = dictionaryId(movie.getActor3());
+        titles[rows] = movie.getTitle().getBytes(StandardCharsets.UTF_8);
+        currentStats.add(movie);
+        if (++rows == blockSize) {
+            writeBlock();
+        }
+    }
+
+    /**
+     * Returns the number of movies added so far.
+     * @return The number of rows.
+     */
+    public long getRowCount() {
+        return totalRows + rows;
+    }
+
+    /**
+     * Returns the number of bytes written to the file so far.
+     * @return The file size once the writer is closed.
+     */
+    public long getBytesWritten() {
+        return position;
+    }
+
+    /**
+     * Writes the last block, the dictionary and the footer, and closes the file.
+     * @throws IOException If the file cannot be completed.
+     */
+    @Override
+    public void close() throws IOException {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            if (rows > 0) {
+                writeBlock();
+            }
+            long dictionaryOffset = position;
+            byte[][] strings = new byte[dictionary.size()][];
+            for (int i = 0; i < strings.length; i++) {
+                strings[i] = dictionary.get(i).getBytes(StandardCharsets.UTF_8);
+            }
+            writeBuffer(ByteBuffer.allocate(4).putInt(strings.length).flip());
+            writeBuffer(encodeStrings(strings.length, strings));
+            long footerOffset = position;
+            int statsSize = MovieStats.encodedSize();
+            ByteBuffer footer = ByteBuffer.allocate(4 + blocks.size() * (12 + statsSize) + statsSize + 16 + 12);
+            footer.putInt(blocks.size());
+            for (int i = 0; i < blocks.size(); i++) {
+                footer.putLong(blocks.get(i)[0]).putInt((int) blocks.get(i)[1]);
+                blockStats.get(i).write(footer);
+            }
+            fileStats.write(footer);
+            footer.putLong(totalRows).putLong(dictionaryOffset);
+            footer.putLong(footerOffset).putInt(MAGIC);
+            writeBuffer(footer.flip());
+        } finally {
+            out.close();
+        }
+    }
+
+    private int dictionaryId(String value) {
+        Integer id = dictionaryIds.get(value);
+        if (id == null) {
+            id = dictionary.size();
+            dictionaryIds.put(value, id);
+            dictionary.add(value);
+        }
+        return id;
+    }
+
+    private void writeBlock() throws IOException {
+        int titleBytes = 0;
+        for (int i = 0; i < rows; i++) {
+            titleBytes += titles[i].length;
+        }
+        ByteBuffer block = ByteBuffer.allocate(MovieColumnFile.titleHeapOffset(rows) + titleBytes);
+        block.putInt(rows);
+        for (int i = 0; i < rows; i++) {
+            block.putInt(years[i]);
+        }
+        for (int i = 0; i < rows; i++) {
+            block.putShort(durations[i]);
+        }
+        for (int i = 0; i < rows; i++) {
+            block.putDouble(scores[i]);
+        }
+        for (int[] column : references) {
+            for (int i = 0; i < rows; i++) {
+                block.putInt(column[i]);
+            }
+        }
+        block.put(encodeStrings(rows, titles));
+        blocks.add(new long[]{position, rows});
+        blockStats.add(currentStats);
+        fileStats.add(currentStats);
+        currentStats = new MovieStats();
+        writeBuffer(block.flip());
+        totalRows += rows;
+        rows = 0;
+    }
+
+    /**
+     * Encodes UTF-8 strings as an offset table followed by their concatenated bytes, ready to be written.
+     */
+    private static ByteBuffer encodeStrings(int count, byte[][] bytes) {
+        int length = 0;
+        for (int i = 0; i < count; i++) {
+            length += bytes[i].length;
+        }
+        ByteBuffer encoded = ByteBuffer.allocate(4 * (count + 1) + length);
+        int offset = 0;
+        for (int i = 0; i < count; i++) {
+            encoded.putInt(offset);
+            offset += bytes[i].length;
+        }
+        encoded.putInt(offset);
+        for (int i = 0; i < count; i++) {
+            encoded.put(bytes[i]);
+        }
+        encoded.flip();
+        return encoded;
+    }
+
+    private void writeBuffer(ByteBuffer buffer) throws IOException {
+        int length = buffer.remaining();
+        out.write(buffer.array(), buffer.arrayOffset() + buffer.position(), length);
+        position += length;
+    }
+}
@@ -0,0 +1,2129 @@
+// -----------------------------------------------------
+// The class MovieManager is created for managing movie records, including error logging, reading and partitioning
+// movie records based on their genres, serialization, and navigation through movie records.
+// The basic functionalities of the class include:
+// 1. Initialization: Upon instantiation, the MovieManager initializes a flag array to keep track of whether movies
+// of a certain genre have been written to file.
+// 2. File Reading and Partitioning (do_part1): This method reads a manifest file containing names of input files
+// with movie records. For each file listed, it reads and processes movie records, partitioning them into
+// genre-specific files. It handles file existence checks and errors related to reading files. Errors are logged
+// to a file (bad-movie_records.txt). The input files can optionally be parsed at the same time by a pool of worker
+// threads, large files being cut into chunks of whole lines; their results are merged in manifest order so the
+// output is identical to a sequential run.
+// 3. Serialization (do_part2): Reads a manifest file listing genre-specific CSV files, loads movies from these files,
+// serializes the movie records into a compact binary column format (*.ser files, see MovieColumnWriter), and writes
+// the names of these serialized files to a new manifest file.
+// Parts 1 and 2 can also run as a single pass (do_pipeline) that serializes validated movies straight into their
+// genre files, making the genre CSV files optional. The single pass can also run incrementally (do_incremental),
+// only reading again the input files that changed since the previous run and rebuilding the genre files they feed.
+// 4. Deserialization and Navigation (do_part3): Opens the binary files listed in a manifest file as memory-mapped
+// stores, which decode a movie only when it is displayed, and allows the user to navigate through the movie records
+// interactively through the console.
+// It supports selecting genres and navigating through movies within a genre.
+// The binary files can also be searched with queries (runQuery, see MovieQuery) that only decode the movies found.
+// -----------------------------------------------------
+
+package movies;
+
+import Exceptions.*;
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Scanner;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.LongAdder;
+import static java.lang.String.*;
+
+public class MovieManager {
+
+    /**
+     * The kinds of store the serialized genre files can be read through for part 3 and queries.
+     * MAPPED maps every file and decodes a movie when it is asked for (see MappedMovieStore), COLUMNAR loads every
+     * movie into primitive arrays on the heap (see ColumnarMovieStore), and OFF_HEAP loads every movie into direct
+     * memory (see OffHeapMovieStore).
+     */
+    public enum StoreType {
+        MAPPED, COLUMNAR, OFF_HEAP
+    }
+
+    // A job on the genre at an index, run by runGenreJobs
+    private interface GenreJob {
+        void run(int index) throws IOException;
+    }
+
+    // Reads a serialized genre file into an array of movies or a store
+    private interface GenreLoader<T> {
+        T load(String fileName) throws IOException;
+    }
+
+    private static final String[] GENRES = CodeTable.GENRES.names();
+    private static final String PART2_MANIFEST = "part2_manifest.txt";
+    private static final String PART3_MANIFEST = "part3_manifest.txt";
+    private static final String ERROR_FILE = "bad-movie_records.txt";
+    private static final String INGEST_DIRECTORY = ".ingest";
+    private static final String INGEST_STATE_FILE = "state.txt";
+    private static final String INGEST_ERROR_FILE = "errors.txt";
+    private static final int SEARCH_RESULTS_SHOWN = 20;
+    private final boolean[] genreWrittenFlag = new boolean[GENRES.length];
+    private int ingestionThreads = 1;
+    private int genreThreads = 1;
+    private long chunkSize = FileChunker.DEFAULT_CHUNK_SIZE;
+    // Validation failures with a fixed message are allocated once and shared, as they carry no stack trace
+    private static final BadYearException YEAR_NOT_INTEGER =
+            new BadYearException("The year must be an integer between 1990 and 1999.");
+    private static final BadTitleException MISSING_TITLE = new BadTitleException("Missing title");
+    private static final BadDurationException DURATION_NOT_INTEGER =
+            new BadDurationException("The duration must be an integer between 30 and 300 minutes.");
+    private static final BadGenreException MISSING_GENRE = new BadGenreException("Missing genre");
+    private static final BadRatingException MISSING_RATING = new BadRatingException("Missing rating");
+    private static final BadScoreException SCORE_NOT_DOUBLE =
+            new BadScoreException("Score must be a positive double value less than or equal to 10.");
+    private static final BadNameException MISSING_NAME = new BadNameException("Missing name(s) in the record.");
+    private GenrePartitionWriters partitionWriters;
+    private GenreSerializers genreSerializers;
+    private ErrorLogWriter errorLog;
+    private ErrorLogWriter.Format errorFormat = ErrorLogWriter.Format.TEXT;
+    // Settings of the error aggregation mode, which is off when every rejected record is written out
+    private boolean aggregateErrors;
+    private int errorFirstExamples;
+    private int errorSampleSize;
+    private long errorSampleSeed;
+    private ErrorAggregator errorAggregator;
+    private final PipelineMetrics metrics = new PipelineMetrics();
+    // Shares director and actor names between records while parsing and deserializing, null to not share them
+    private NamePool namePool = new NamePool(NamePool.DEFAULT_CAPACITY);
+    // What the name pool did while records were parsed: hits, misses and bytes saved
+    private final long[] parsePoolStats = new long[3];
+    private StoreType storeType = StoreType.MAPPED;
+
+    // Constructor initializes the MovieManager with default settings.
+    public MovieManager() {
+        for (int i = 0; i < GENRES.length; i++) {
+            genreWrittenFlag[i] = false;
+        }
+    }
+
+    /**
+     * Sets the number of worker threads do_part1 uses to parse the input files listed in its manifest.
+     * With a single thread the files are processed one after another on the calling thread.
+     * @param ingestionThreads The number of worker threads, at least 1.
+     */
+    public void setIngestionThreads(int ingestionThreads) {
+        if (ingestionThreads < 1) {
+            throw new IllegalArgumentException("The number of ingestion threads must be at least 1.");
+        }
+        this.ingestionThreads = ingestionThreads;
+    }
+
+    /**
+     * Sets the number of worker threads do_part2 and the loading of the serialized genre files use to process the
+     * genres at the same time. Every genre is a job of its own, so the wall time of these stages comes down to about
+     * the time the largest genre takes once there are enough threads. With a single thread the genres are processed
+     * one after another on the calling thread.
+     * @param genreThreads The number of worker threads, at least 1.
+     */
+    public void setGenreThreads(int genreThreads) {
+        if (genreThreads < 1) {
+            throw new IllegalArgumentException("The number of genre threads must be at least 1.");
+        }
+        this.genreThreads = genreThreads;
+    }
+
+    /**
+     * Sets the size of the chunks large input files are cut into when they are parsed by several worker threads,
+     * so the lines of a single file are parsed at the same time (see FileChunker).
+     * @param chunkSize The number of bytes aimed at for every chunk, at least 1.
+     */
+    public void setChunkSize(long chunkSize) {
+        if (chunkSize < 1) {
+            throw new IllegalArgumentException("The chunk size must be at least 1 byte.");
+        }
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Sets how rejected records are written to the error file: as lines of text, or as JSON objects holding the
+     * file, line, error code, message and raw line of every record.
+     * @param errorFormat The format of the error file.
+     */
+    public void setErrorFormat(ErrorLogWriter.Format errorFormat) {
+        this.errorFormat = errorFormat;
+    }
+
+    /**
+     * Turns on the error aggregation mode for very dirty inputs. Instead of writing every rejected record, do_part1
+     * and do_pipeline count them per input file and per error code, write only the first records and a seeded
+     * random sample of the others for every error code, and print a summary table at the end of the run.
+     * do_incremental does not support it, as it does not read the input files that did not change.
+     * @param firstExamples The number of first records written for every error code.
+     * @param sampleSize The number of later records sampled for every error code.
+     * @param seed The seed of the sampling.
+     */
+    public void setErrorAggregation(int firstExamples, int sampleSize, long seed) {
+        if (firstExamples < 0 || sampleSize < 0) {
+            throw new IllegalArgumentException("The numbers of error examples must not be negative.");
+        }
+        this.aggregateErrors = true;
+        this.errorFirstExamples = firstExamples;
+        this.errorSampleSize = sampleSize;
+        this.errorSampleSeed = seed;
+    }
+
+    /**
+     * Sets the pool director and actor names are looked up in while records are parsed and genre files are
+     * deserialized, so that every record naming the same person shares one String.
+     * @param namePool The pool, or null to give every record its own copy of the names.
+     */
+    public void setNamePool(NamePool namePool) {
+        this.namePool = namePool;
+        Arrays.fill(parsePoolStats, 0);
+    }
+
+    /**
+     * Returns the pool director and actor names are looked up in, with its hit rate and the memory it saved.
+     * @return The pool, or null if names are not shared.
+     */
+    public NamePool getNamePool() {
+        return namePool;
+    }
+
+    /**
+     * Sets how do_part3 and runQuery read the serialized genre files (see StoreType).
+     * @param storeType The kind of store the genres are read through.
+     */
+    public void setStoreType(StoreType storeType) {
+        this.storeType = storeType;
+    }
+
+    /**
+     * Returns the metrics collected by the runs of this manager: rows read, parsed and rejected by error code, rows
+     * and bytes written per genre, the time spent in every stage and the time taken to open every serialized file.
+     * @return The metrics.
+     */
+    public PipelineMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Writes the metrics collected so far to a file, replacing it.
+     * @param fileName The name of the file.
+     * @param format The format of the file, JSON or Prometheus text.
+     */
+    public void writeMetrics(String fileName, PipelineMetrics.Format format) {
+        if (namePool != null) {
+            // The pool keeps its own statistics, which are copied into the metrics when they are written. The names
+            // of parsed records only live as long as their record, so only the names of the genre files loaded or
+            // navigated count as memory saved
+            long[] total = namePoolStats();
+            setCounter("movie_name_pool_hits_total", "Names found in the name pool, by phase.",
+                    parsePoolStats[0], "phase", "parse");
+            setCounter("movie_name_pool_hits_total", "Names found in the name pool, by phase.",
+                    total[0] - parsePoolStats[0], "phase", "load");
+            setCounter("movie_name_pool_misses_total", "Names not found in the name pool, by phase.",
+                    parsePoolStats[1], "phase", "parse");
+            setCounter("movie_name_pool_misses_total", "Names not found in the name pool, by phase.",
+                    total[1] - parsePoolStats[1], "phase", "load");
+            setCounter("movie_name_pool_saved_bytes_total",
+                    "Estimated bytes saved by sharing the pooled names of the genre files loaded or navigated.",
+                    total[2] - parsePoolStats[2]);
+        }
+        try {
+            metrics.write(fileName, format);
+        } catch (IOException e) {
+            System.err.println("Error writing the metrics to " + fileName + ": " + e.getMessage());
+        }
+    }
+
+    private void setCounter(String name, String description, long value, String... labels) {
+        LongAdder counter = metrics.counter(name, description, labels);
+        counter.reset();
+        counter.add(value);
+    }
+
+    /**
+     * Returns the statistics of the name pool so far.
+     * @return The hits, misses and bytes saved, all 0 without a pool.
+     */
+    private long[] namePoolStats() {
+        return namePool == null ? new long[3]
+                : new long[]{namePool.getHits(), namePool.getMisses(), namePool.getBytesSaved()};
+    }
+
+    /**
+     * Adds what the name pool did since a snapshot to its statistics of the parse phase.
+     * @param before The statistics of the pool when parsing started (see namePoolStats).
+     */
+    private void countParsePool(long[] before) {
+        long[] after = namePoolStats();
+        for (int i = 0; i < parsePoolStats.length; i++) {
+            parsePoolStats[i] += after[i] - before[i];
+        }
+    }
+
+    /**
+     * Returns the histogram timing a stage of the pipeline.
+     * @param stage The name of the stage.
+     * @return The histogram.
+     */
+    private PipelineMetrics.Histogram stageTimer(String stage) {
+        return metrics.histogram("movie_stage_seconds", "Time spent in each stage of the pipeline.", "stage", stage);
+    }
+
+    /**
+     * Counts the rows and bytes written to a genre file.
+     * @param format The format of the genre file, csv or ser.
+     * @param genreIndex The index of the genre.
+     * @param rows The number of rows written.
+     * @param bytes The number of bytes written.
+     */
+    private void countGenreOutput(String format, int genreIndex, long rows, long bytes) {
+        if (rows == 0) {
+            return;
+        }
+        metrics.counter("movie_rows_written_total", "Movies written to the genre files.",
+                "format", format, "genre", GENRES[genreIndex]).add(rows);
+        metrics.counter("movie_bytes_written_total", "Bytes written to the genre files.",
+                "format", format, "genre", GENRES[genreIndex]).add(bytes);
+    }
+
+    /**
+     * Opens the error file for the current run, appending to it. Rejected records are written by the writer thread
+     * of the error log, which batches them instead of flushing the file for every record.
+     * @return Whether the error file could be opened.
+     */
+    private boolean openErrorLog() {
+        try {
+            errorLog = new ErrorLogWriter(ERROR_FILE, true, errorFormat);
+            if (aggregateErrors) {
+                errorAggregator = new ErrorAggregator(errorFirstExamples, errorSampleSize, errorSampleSeed);
+            }
+            return true;
+        } catch (IOException e) {
+            System.err.println("Error opening " + ERROR_FILE + ": " + e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * Writes the rejected records still queued for the error file of the current run and closes it.
+     */
+    private void closeErrorLog() {
+        if (errorLog == null) {
+            return;
+        }
+        if (errorAggregator != null) {
+            // The kept examples are written grouped by error code, followed by the summary of every record
+            for (ErrorCode code : ErrorCode.values()) {
+                for (ErrorRecord error : errorAggregator.getExamples(code)) {
+                    errorLog.log(error);
+                }
+            }
+            errorAggregator.printSummary(System.out);
+            errorAggregator = null;
+        }
+        try {
+            errorLog.close();
+        } catch (IOException e) {
+            System.err.println("Error writing to " + ERROR_FILE + ": " + e.getMessage());
+        }
+        errorLog = null;
+    }
+
+    /**
+     * Queues a rejected record for the error file of the current run.
+     * @param error The rejected record.
+     */
+    private void logError(ErrorRecord error) {
+        if (errorAggregator != null) {
+            errorAggregator.add(error);
+        } else if (errorLog != null) {
+            errorLog.log(error);
+        }
+    }
+
+    /**
+     * Processes the first part of the movie data processing pipeline by reading and partitioning movies based on a manifest file.
+     * @param manifestFilePath Path to the manifest file listing input files.
+     */
+    public void do_part1(String manifestFilePath) {
+        long start = System.nanoTime();
+        // Reset genre flags for new processing
+        for (int i = 0; i < GENRES.length; i++) {
+            genreWrittenFlag[i] = false;
+        }
+        List<String> inputFiles = readInputManifest(manifestFilePath);
+        if (inputFiles == null) {
+            return;
+        }
+        // Process the movie data, keeping the genre files and the error file open for the whole run
+        partitionWriters = new GenrePartitionWriters(GENRES);
+        openErrorLog();
+        long[] poolBefore = namePoolStats();
+        try {
+            partitionInputFiles(inputFiles);
+        } finally {
+            countParsePool(poolBefore);
+            closeErrorLog();
+            closePartitionWriters();
+        }
+        // After processing, write genre-specific data
+        writeGenresToManifest();
+        stageTimer("part1").recordSince(start);
+    }
+
+    /**
+     * Runs the first two parts of the pipeline as a single pass: movies validated while reading the input files
+     * are serialized straight into their genre files, so the genre CSV files do not have to be read back and
+     * validated again. Writes the part 3 manifest, listing the genres that received movies.
+     * @param manifestFilePath Path to the manifest file listing input files.
+     * @param writeGenreCsv Whether to also write the genre CSV files and the part 2 manifest, as do_part1 does.
+     */
+    public void do_pipeline(String manifestFilePath, boolean writeGenreCsv) {
+        long start = System.nanoTime();
+        for (int i = 0; i < GENRES.length; i++) {
+            genreWrittenFlag[i] = false;
+        }
+        List<String> inputFiles = readInputManifest(manifestFilePath);
+        if (inputFiles == null) {
+            return;
+        }
+        if (writeGenreCsv) {
+            partitionWriters = new GenrePartitionWriters(GENRES);
+        }
+        genreSerializers = new GenreSerializers(GENRES);
+        openErrorLog();
+        long[] poolBefore = namePoolStats();
+        try {
+            partitionInputFiles(inputFiles);
+        } finally {
+            countParsePool(poolBefore);
+            closeErrorLog();
+            closePartitionWriters();
+            closeGenreSerializers();
+        }
+        if (writeGenreCsv) {
+            writeGenresToManifest();
+        }
+        stageTimer("pipeline").recordSince(start);
+    }
+
+    /**
+     * Runs the first two parts of the pipeline incrementally, reading again only the input files that changed since
+     * the previous incremental run. The contribution of every input file, its serialized genre files and its error
+     * lines, is kept in a directory of its own under .ingest along with a fingerprint of the file (see IngestState).
+     * Unchanged files are skipped, and the contribution of a changed or removed file is replaced or dropped. Only
+     * the genre files it contributed to are rebuilt, from the contributions of every input file in manifest order,
+     * so the genre files hold the same movies as a single pass over the manifest and a rerun never duplicates them.
+     * The error file is rewritten from the contributions, and the part 3 manifest lists the genres with movies.
+     * The error aggregation mode is not supported, since summarizing the rejected records of a run needs all of them
+     * and unchanged input files are not read again.
+     * @param manifestFilePath Path to the manifest file listing input files.
+     * @throws IllegalStateException If the error aggregation mode is on.
+     */
+    public void do_incremental(String manifestFilePath) {
+        if (aggregateErrors) {
+            throw new IllegalStateException("The error aggregation mode is not supported by incremental ingestion.");
+        }
+        long start = System.nanoTime();
+        List<String> inputFiles = readInputManifest(manifestFilePath);
+        if (inputFiles == null) {
+            return;
+        }
+        IngestState previous;
+        try {
+            previous = IngestState.load(new File(INGEST_DIRECTORY, INGEST_STATE_FILE));
+        } catch (IOException e) {
+            System.err.println("Error reading the ingestion state, all input files will be processed: " + e.getMessage());
+            previous = new IngestState();
+        }
+        boolean[] affected = new boolean[GENRES.length];
+        // The first run replaces whatever genre files were there before
+        if (previous.isEmpty()) {
+            Arrays.fill(affected, true);
+        }
+        List<String> listedFiles = new ArrayList<>(new LinkedHashSet<>(inputFiles));
+        // Genre files follow the manifest order, a file listed twice included, so reordering the files kept from
+        // the previous manifest or listing one of them a different number of times changes them all
+        List<String> previousManifest = previous.getManifest();
+        if (previousManifest == null) {
+            Arrays.fill(affected, true);
+        } else {
+            List<String> keptOrder = new ArrayList<>(previousManifest);
+            keptOrder.retainAll(listedFiles);
+            List<String> listedOrder = new ArrayList<>(inputFiles);
+            listedOrder.retainAll(previousManifest);
+            if (!keptOrder.equals(listedOrder)) {
+                Arrays.fill(affected, true);
+            }
+        }
+
+        // Find the input files whose content changed since the previous run
+        Map<String, IngestState.Entry> ingested = new HashMap<>();
+        List<String> changedFiles = new ArrayList<>();
+        for (String inputFile : listedFiles) {
+            IngestState.Entry entry = unchangedEntry(inputFile, previous.get(inputFile));
+            if (entry != null) {
+                ingested.put(inputFile, entry);
+            } else {
+                changedFiles.add(inputFile);
+                markContributedGenres(previous.get(inputFile), affected);
+            }
+        }
+        int removedFiles = 0;
+        for (String inputFile : previous.getInputFiles()) {
+            if (!ingested.containsKey(inputFile) && !changedFiles.contains(inputFile)) {
+                markContributedGenres(previous.get(inputFile), affected);
+                deleteContribution(contributionDirectory(inputFile));
+                removedFiles++;
+            }
+        }
+
+        // Replace the contributions of the changed files
+        long[] poolBefore = namePoolStats();
+        List<IngestState.Entry> entries;
+        try {
+            entries = ingestContributions(changedFiles);
+        } finally {
+            countParsePool(poolBefore);
+        }
+        for (int i = 0; i < changedFiles.size(); i++) {
+            IngestState.Entry entry = i < entries.size() ? entries.get(i) : null;
+            if (entry != null) {
+                ingested.put(changedFiles.get(i), entry);
+                markContributedGenres(entry, affected);
+            }
+        }
+        IngestState current = new IngestState();
+        current.setManifest(inputFiles);
+        for (String inputFile : listedFiles) {
+            if (ingested.containsKey(inputFile)) {
+                current.put(ingested.get(inputFile));
+            }
+        }
+
+        // Rebuild the genre files that changed, and any that went missing
+        long[] genreCounts = new long[GENRES.length];
+        for (String inputFile : inputFiles) {
+            for (int i = 0; current.get(inputFile) != null && i < GENRES.length; i++) {
+                genreCounts[i] += current.get(inputFile).getGenreCount(i);
+            }
+        }
+        List<String> rebuiltFiles = new ArrayList<>();
+        boolean complete = true;
+        for (int i = 0; i < GENRES.length; i++) {
+            if (affected[i] || (genreCounts[i] > 0 && !new File(GENRES[i] + ".ser").exists())) {
+                try {
+                    rebuildGenreFile(i, inputFiles, current);
+                    rebuiltFiles.add(GENRES[i] + ".ser");
+                } catch (IOException e) {
+                    System.err.println("Error rebuilding genre file " + GENRES[i] + ".ser: " + e.getMessage());
+                    complete = false;
+                }
+            }
+            genreWrittenFlag[i] = genreCounts[i] > 0;
+        }
+        if (!changedFiles.isEmpty() || removedFiles > 0 || !rebuiltFiles.isEmpty() || !new File(ERROR_FILE).exists()) {
+            rebuildErrorFile(inputFiles, current);
+        }
+        try (PrintWriter part3ManifestWriter = new PrintWriter(new FileWriter(PART3_MANIFEST))) {
+            for (int i = 0; i < GENRES.length; i++) {
+                if (genreCounts[i] > 0) {
+                    part3ManifestWriter.println(GENRES[i] + ".ser");
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Error writing to " + PART3_MANIFEST + ": " + e.getMessage());
+        }
+        // A genre file that could not be rebuilt is retried by the next run, which reprocesses the changed files
+        if (complete) {
+            try {
+                current.save(new File(INGEST_DIRECTORY, INGEST_STATE_FILE));
+            } catch (IOException e) {
+                System.err.println("Error saving the ingestion state: " + e.getMessage());
+            }
+        }
+
+        System.out.println("-------------------------------");
+        System.out.println("     Incremental ingestion     ");
+        System.out.println("-------------------------------");
+        System.out.println("Input files unchanged: " + (listedFiles.size() - changedFiles.size()));
+        System.out.println("Input files reprocessed: " + changedFiles.size());
+        System.out.println("Input files removed: " + removedFiles);
+        System.out.println("Genre files rebuilt: " + (rebuiltFiles.isEmpty() ? "none" : join(", ", rebuiltFiles)));
+        System.out.println("-------------------------------");
+        stageTimer("incremental").recordSince(start);
+    }
+
+    /**
+     * Checks whether an input file still has the content it had when it was last ingested.
+     * @param inputFile Path to the input file.
+     * @param entry What was ingested from the file by the previous run, or null if it was not ingested.
+     * @return The entry to keep for the file, or null if the file has to be processed again.
+     */
+    private IngestState.Entry unchangedEntry(String inputFile, IngestState.Entry entry) {
+        if (entry == null || !contributionDirectory(inputFile).isDirectory()) {
+            return null;
+        }
+        File input = new File(inputFile);
+        if (input.length() != entry.size) {
+            return null;
+        }
+        if (input.lastModified() == entry.modified) {
+            return entry;
+        }
+        // The file was touched, so only its content tells whether it changed
+        try {
+            return IngestState.hash(input).equals(entry.hash) ? entry.touched(input.lastModified()) : null;
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Processes the given input files into their contributions, one after another or on the worker threads.
+     * @param inputFiles Paths to the files containing movie records.
+     * @return The entry of every file, in the same order, with null for the files that could not be processed.
+     */
+    private List<IngestState.Entry> ingestContributions(List<String> inputFiles) {
+        List<IngestState.Entry> entries = new ArrayList<>();
+        if (ingestionThreads > 1 && inputFiles.size() > 1) {
+            ExecutorService executor = Executors.newFixedThreadPool(Math.min(ingestionThreads, inputFiles.size()));
+            try {
+                List<Future<IngestState.Entry>> results = new ArrayList<>();
+                for (String inputFile : inputFiles) {
+                    results.add(executor.submit(() -> ingestContribution(inputFile)));
+                }
+                for (Future<IngestState.Entry> result : results) {
+                    entries.add(result.get());
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                System.err.println("Parallel ingestion was interrupted.");
+            } catch (ExecutionException e) {
+                // A file that cannot be read gives a null entry, so anything else is a bug. It is rethrown before
+                // the genre files are rebuilt and the state is saved, so the next run processes the files again
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw (Error) e.getCause();
+            } finally {
+                executor.shutdownNow();
+            }
+        } else {
+            for (String inputFile : inputFiles) {
+                entries.add(ingestContribution(inputFile));
+            }
+        }
+        return entries;
+    }
+
+    /**
+     * Reads and validates an input file into its contribution directory, replacing its previous contribution:
+     * one serialized file per genre receiving movies, and the lines the file adds to the error file.
+     * Runs on a worker thread when the files are processed in parallel, so it only touches its own directory.
+     * @param inputFile Path to the file containing movie records.
+     * @return What was ingested from the file, or null if it could not be processed.
+     */
+    private IngestState.Entry ingestContribution(String inputFile) {
+        File input = new File(inputFile);
+        File directory = contributionDirectory(inputFile);
+        try {
+            long size = input.length();
+            long modified = input.lastModified();
+            String hash = IngestState.hash(input);
+            deleteContribution(directory);
+            Files.createDirectories(directory.toPath());
+            try (GenreSerializers serializers = new GenreSerializers(GENRES, directory.getPath());
+                 PrintWriter errorWriter = new PrintWriter(new FileWriter(new File(directory, INGEST_ERROR_FILE),
+                         StandardCharsets.UTF_8))) {
+                scanMovieFile(inputFile, new MovieRecordHandler() {
+                    @Override
+                    public void accept(Movie movie) {
+                        try {
+                            serializers.write(movie.getGenreId(), movie);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    }
+
+                    @Override
+                    public void reject(ErrorRecord error) {
+                        errorWriter.println(errorFormat.format(error));
+                    }
+                });
+                long[] genreCounts = new long[GENRES.length];
+                for (int i = 0; i < GENRES.length; i++) {
+                    genreCounts[i] = serializers.getRecordsWritten(i);
+                }
+                return new IngestState.Entry(inputFile, size, modified, hash, genreCounts);
+            }
+        } catch (IOException | UncheckedIOException e) {
+            System.err.println("Error processing the input file " + inputFile + ": " + e.getMessage());
+            deleteContribution(directory);
+            return null;
+        }
+    }
+
+    /**
+     * Writes a genre file from the contributions of the input files to the genre, in manifest order, replacing the
+     * previous file only once the new one is complete. The genre file is removed if no input file contributes to it.
+     * @param genreIndex The index of the genre.
+     * @param inputFiles Paths to the input files, in manifest order.
+     * @param state What was ingested from the input files.
+     * @throws IOException If a contribution cannot be read or the genre file cannot be written.
+     */
+    private void rebuildGenreFile(int genreIndex, List<String> inputFiles, IngestState state) throws IOException {
+        File genreFile = new File(GENRES[genreIndex] + ".ser");
+        File temporary = new File(genreFile.getPath() + ".tmp");
+        long rows;
+        try (MovieColumnWriter writer = new MovieColumnWriter(temporary.getPath())) {
+            for (String inputFile : inputFiles) {
+                IngestState.Entry entry = state.get(inputFile);
+                if (entry == null || entry.getGenreCount(genreIndex) == 0) {
+                    continue;
+                }
+                File contribution = new File(contributionDirectory(inputFile), genreFile.getName());
+                for (Movie movie : MovieColumnFile.readAll(contribution.getPath())) {
+                    writer.write(movie);
+                }
+            }
+            rows = writer.getRowCount();
+        } catch (IOException e) {
+            Files.deleteIfExists(temporary.toPath());
+            throw e;
+        }
+        if (rows == 0) {
+            Files.deleteIfExists(temporary.toPath());
+            Files.deleteIfExists(genreFile.toPath());
+        } else {
+            countGenreOutput("ser", genreIndex, rows, temporary.length());
+            Files.move(temporary.toPath(), genreFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * Rewrites the error file from the error lines of the contributions of the input files, in manifest order.
+     * @param inputFiles Paths to the input files, in manifest order.
+     * @param state What was ingested from the input files.
+     */
+    private void rebuildErrorFile(List<String> inputFiles, IngestState state) {
+        try (OutputStream errorFile = new FileOutputStream(ERROR_FILE)) {
+            for (String inputFile : inputFiles) {
+                File errors = new File(contributionDirectory(inputFile), INGEST_ERROR_FILE);
+                if (state.get(inputFile) != null && errors.exists()) {
+                    Files.copy(errors.toPath(), errorFile);
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Error writing to " + ERROR_FILE + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Flags the genres an input file contributed movies to.
+     * @param entry What was ingested from the file, or null if nothing was.
+     * @param genres The flags to set, indexed by genre.
+     */
+    private void markContributedGenres(IngestState.Entry entry, boolean[] genres) {
+        for (int i = 0; entry != null && i < GENRES.length; i++) {
+            if (entry.getGenreCount(i) > 0) {
+                genres[i] = true;
+            }
+        }
+    }
+
+    private File contributionDirectory(String inputFile) {
+        return new File(INGEST_DIRECTORY, IngestState.key(inputFile));
+    }
+
+    /**
+     * Deletes the directory holding the contribution of an input file, which only holds files.
+     * @param directory The contribution directory.
+     */
+    private void deleteContribution(File directory) {
+        File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                if (!file.delete()) {
+                    System.err.println("Could not delete " + file);
+                }
+            }
+        }
+        if (!directory.delete() && directory.exists()) {
+            System.err.println("Could not delete " + directory);
+        }
+    }
+
+    /**
+     * Reads the manifest file listing the input files of part 1.
+     * @param manifestFilePath Path to the manifest file listing input files.
+     * @return The paths of the listed input files that exist, in manifest order, or null if the manifest does not exist.
+     */
+    private List<String> readInputManifest(String manifestFilePath) {
+        // Load and verify the manifest file exists
+        File manifestFile = new File(manifestFilePath);
+        if (!manifestFile.exists()) {
+            System.err.println("Manifest file does not exist: " + manifestFilePath);
+            return null;
+        }
+        // Collect each input file listed in the manifest
+        List<String> inputFiles = new ArrayList<>();
+        try (BufferedReader manifestReader = new BufferedReader(new FileReader(manifestFile))) {
+            String inputFile;
+            while ((inputFile = manifestReader.readLine()) != null) {
+                // Build the absolute or relative path to the input file based on the manifest file's directory
+                String inputFilePath = new File(manifestFile.getParent(), inputFile).getAbsolutePath();
+                File input = new File(inputFilePath);
+                if (!input.exists()) {
+                    System.err.println("Input file listed in manifest does not exist: " + inputFilePath);
+                    continue; // Skip this file and continue with the next
+                }
+                inputFiles.add(inputFilePath);
+            }
+        } catch (FileNotFoundException e) {
+            System.err.println("Manifest file not found: " + e.getMessage());
+        } catch (IOException e) {
+            System.err.println("Error reading the manifest file: " + e.getMessage());
+        }
+        return inputFiles;
+    }
+
+    /**
+     * Reads and partitions the given input files, one after another or on the worker threads.
+     * @param inputFiles Paths to the files containing movie records, in manifest order.
+     */
+    private void partitionInputFiles(List<String> inputFiles) {
+        if (ingestionThreads > 1) {
+            partitionInParallel(inputFiles);
+        } else {
+            for (String inputFilePath : inputFiles) {
+                try {
+                    readAndPartitionMovie(inputFilePath);
+                } catch (FileNotFoundException e) {
+                    System.err.println("Input file not found: " + e.getMessage());
+                }
+            }
+        }
+    }
+
+    /**
+     * Processes the second part of the movie data pipeline, serializing movie objects based on a second manifest.
+     * The genres are serialized on the genre threads (see setGenreThreads); the part 3 manifest lists them in the
+     * order of the part 2 manifest whatever order they finish in.
+     * @param PART2_MANIFEST Path to the manifest file for part 2, listing genre-specific CSV files.
+     */
+    public void do_part2(String PART2_MANIFEST) {
+        long start = System.nanoTime();
+        long[] poolBefore = namePoolStats();
+        File part2ManifestFile = new File(PART2_MANIFEST);
+        try (BufferedReader part2ManifestReader = new BufferedReader(new FileReader(part2ManifestFile))) {
+            List<String> genreFileNames = new ArrayList<>();
+            List<String> binaryFileNames = new ArrayList<>();
+            String genreFileName;
+            while ((genreFileName = part2ManifestReader.readLine()) != null) {
+                genreFileNames.add(genreFileName);
+                binaryFileNames.add(genreFileName.replace(".csv", ".ser"));
+            }
+            // Serialize the genres, each with its own error messages so they can be reported in manifest order
+            long[] movieCounts = new long[genreFileNames.size()];
+            List<List<String>> errors = new ArrayList<>();
+            for (int i = 0; i < genreFileNames.size(); i++) {
+                errors.add(new ArrayList<>());
+            }
+            runGenreJobs(genreFileNames.size(), i -> movieCounts[i] =
+                    serializeMoviesFromCSV(genreFileNames.get(i), binaryFileNames.get(i), errors.get(i)));
+            try (PrintWriter part3ManifestWriter = new PrintWriter(new FileWriter(PART3_MANIFEST))) {
+                for (int i = 0; i < genreFileNames.size(); i++) {
+                    for (String error : errors.get(i)) {
+                        System.out.println(error);
+                    }
+                    // Update the part 3 manifest
+                    if (movieCounts[i] > 0) {
+                        part3ManifestWriter.println(binaryFileNames.get(i));
+                    }
+                }
+            }
+        } catch (FileNotFoundException e) {
+            System.out.println("Part 2 manifest file not found: " + e.getMessage());
+        } catch (IOException e) {
+            System.out.println("Error reading the Part 2 manifest file: " + e.getMessage());
+        } finally {
+            countParsePool(poolBefore);
+            stageTimer("part2").recordSince(start);
+        }
+    }
+
+   /**
+   * Processes the third part of the movie data pipeline, opening the serialized genre files for navigation.
+   * Only the movies the user displays are decoded.
+   * @param PART3_MANIFEST Path to the manifest file for part 3.
+   * @return The genre stores that were navigated, which stay open.
+   */
+    public MovieStore[] do_part3(String PART3_MANIFEST) {
+        return do_part3(PART3_MANIFEST, new MovieStore[GENRES.length]);
+    }
+
+   /**
+   * Processes the third part of the movie data pipeline over genre stores of which some are already open, such as
+   * the stores a query opened (see runQuery), so their files are not read again. The other genres are opened.
+   * @param PART3_MANIFEST Path to the manifest file for part 3.
+   * @param catalog The genre stores already open, indexed by genre, with null for the genres still to open.
+   *                It receives the stores opened.
+   * @return The genre stores that were navigated, which stay open.
+   */
+    public MovieStore[] do_part3(String PART3_MANIFEST, MovieStore[] catalog) {
+        long start = System.nanoTime();
+        MovieStore[] allMovies = openStores(PART3_MANIFEST, catalog);
+        // Navigation waits on the user, so only opening the files is timed
+        stageTimer("part3_open").recordSince(start);
+        navigateMovieArrays(allMovies);
+
+        return allMovies;
+    }
+
+    /**
+     * Reads movie data from a file, validates each movie record, and partitions validated records into genre-specific files.
+     * Invalid records are logged to an error file.
+     * @param inputFile Path to the file containing movie records.
+     * @throws FileNotFoundException If the specified input file does not exist.
+     */
+    public void readAndPartitionMovie(String inputFile) throws FileNotFoundException {
+        // Outside of do_part1 and do_pipeline the genre files and the error file are only kept open for this input file
+        boolean ownsWriters = partitionWriters == null && genreSerializers == null;
+        if (ownsWriters) {
+            partitionWriters = new GenrePartitionWriters(GENRES);
+        }
+        boolean ownsErrorLog = errorLog == null && openErrorLog();
+
+        try {
+            scanMovieFile(inputFile, new MovieRecordHandler() {
+                @Override
+                public void accept(Movie movie) {
+                    // Write valid movie to its respective genre file
+                    writeMovieToGenreFile(movie, null);
+                }
+
+                @Override
+                public void reject(ErrorRecord error) {
+                    logError(error);
+                }
+            });
+        } catch (IOException e) {
+            System.err.println("Error reading the input file: " + e.getMessage());
+        } finally {
+            if (ownsErrorLog) {
+                closeErrorLog();
+            }
+            if (ownsWriters) {
+                closePartitionWriters();
+            }
+        }
+    }
+
+    /**
+     * Closes the genre files opened by the current partitioning run and prints how much was written to each.
+     */
+    private void closePartitionWriters() {
+        if (partitionWriters == null) {
+            return;
+        }
+        try {
+            partitionWriters.close();
+        } catch (IOException e) {
+            System.err.println("Error closing genre file: " + e.getMessage());
+        }
+        for (int i = 0; i < GENRES.length; i++) {
+            countGenreOutput("csv", i, partitionWriters.getRecordsWritten(i), partitionWriters.getBytesWritten(i));
+        }
+        partitionWriters.printSummary(System.out);
+        partitionWriters = null;
+    }
+
+    /**
+     * Completes the serialized genre files of the current pipeline run, prints how much was written to each,
+     * and writes the part 3 manifest listing the genres that received movies.
+     */
+    private void closeGenreSerializers() {
+        if (genreSerializers == null) {
+            return;
+        }
+        try {
+            genreSerializers.close();
+        } catch (IOException e) {
+            System.err.println("Error completing serialized genre file: " + e.getMessage());
+        }
+        for (int i = 0; i < GENRES.length; i++) {
+            countGenreOutput("ser", i, genreSerializers.getRecordsWritten(i), genreSerializers.getBytesWritten(i));
+        }
+        genreSerializers.printSummary(System.out);
+        try (PrintWriter part3ManifestWriter = new PrintWriter(new FileWriter(PART3_MANIFEST))) {
+            for (int i = 0; i < GENRES.length; i++) {
+                if (genreSerializers.getRecordsWritten(i) > 0) {
+                    part3ManifestWriter.println(genreSerializers.getFileName(i));
+                }
+            }
+        } catch (IOException e) {
+            System.err.println("Error writing to " + PART3_MANIFEST + ": " + e.getMessage());
+        }
+        genreSerializers = null;
+    }
+
+    /**
+     * Reads movie data from a file, validates each movie record and passes the outcome of every line to a handler.
+     * @param inputFile Path to the file containing movie records.
+     * @param handler The handler receiving the valid movies and the validation errors.
+     * @throws IOException If an I/O error occurs while reading the file.
+     */
+    private void scanMovieFile(String inputFile, MovieRecordHandler handler) throws IOException {
+        scanMovieFile(inputFile, 0, Long.MAX_VALUE, handler);
+    }
+
+    /**
+     * Reads movie data from a range of a file made of whole lines, validates each movie record and passes the
+     * outcome of every line to a handler. Lines are numbered from the start of the range.
+     * @param inputFile Path to the file containing movie records.
+     * @param start The offset of the first byte of the range.
+     * @param end The offset after the last byte of the range.
+     * @param handler The handler receiving the valid movies and the validation errors.
+     * @return The number of lines in the range.
+     * @throws IOException If an I/O error occurs while reading the file.
+     */
+    private int scanMovieFile(String inputFile, long start, long end, MovieRecordHandler handler) throws IOException {
+        long scanStart = System.nanoTime();
+        int lineNumber = 0;
+        long parsed = 0;
+        long[] rejected = new long[ErrorCode.values().length];
+        CsvTokenizer tokenizer = new CsvTokenizer();
+
+        // Lines are tokenized as bytes; only rejected lines are decoded whole, for the error record
+        try (ByteLineReader reader = new ByteLineReader(inputFile, start, end, ByteLineReader.DEFAULT_BUFFER_SIZE)) {
+            try {
+                while (reader.nextLine()) {
+                    lineNumber++;
+                    try {
+                        // Validate the current movie record
+                        Movie movie = validateMovieRecord(reader.getBuffer(), reader.getLineStart(),
+                                reader.getLineEnd(), tokenizer);
+                        if (movie != null) {
+                            parsed++;
+                            handler.accept(movie);
+                        }
+                    } catch (MovieRecordException e) {
+                        rejected[e.getErrorCode().ordinal()]++;
+                        handler.reject(new ErrorRecord(inputFile, lineNumber, e.getErrorCode(), e.getMessage(),
+                                reader.getLine()));
+                    }
+                }
+            } finally {
+                // The rows are counted locally and added once, so workers do not share counters row by row
+                countScan(lineNumber, parsed, rejected, reader.getBytesRead(), scanStart);
+            }
+        }
+        return lineNumber;
+    }
+
+    private void countScan(long lines, long parsed, long[] rejected, long bytes, long scanStart) {
+        metrics.counter("movie_input_bytes_read_total", "Bytes read from the input files.").add(bytes);
+        metrics.counter("movie_rows_read_total", "Lines read from the input files.").add(lines);
+        metrics.counter("movie_rows_parsed_total", "Input lines validated into movies.").add(parsed);
+        for (ErrorCode code : ErrorCode.values()) {
+            if (rejected[code.ordinal()] > 0) {
+                metrics.counter("movie_rows_rejected_total", "Input lines rejected, by error code.",
+                        "code", code.name()).add(rejected[code.ordinal()]);
+            }
+        }
+        metrics.histogram("movie_scan_seconds", "Time spent reading and validating an input file or chunk.")
+                .recordSince(scanStart);
+    }
+
+    /**
+     * Parses the given input files at the same time on a fixed pool of worker threads. Input files larger than the
+     * chunk size are cut into chunks of whole lines (see FileChunker), so the lines of a single file are also parsed
+     * at the same time. Each worker buffers the genre records and error lines of its chunk, and the buffers are
+     * written out in manifest and file order so the genre files and the error file are identical to the ones
+     * produced by processing the files one after another. The line numbers of the rejected records of a chunk are
+     * fixed while merging, from the number of lines of the chunks before it. A read error ends its file at the chunk
+     * it happened in, as it does when the file is read in one go.
+     * Only a few chunks per worker are parsed ahead of the merge, which bounds the memory held by the buffers.
+     * @param inputFiles Paths to the files containing movie records, in manifest order.
+     */
+    private void partitionInParallel(List<String> inputFiles) {
+        List<FileChunker.Chunk> chunks = new ArrayList<>();
+        for (String inputFile : inputFiles) {
+            try {
+                chunks.addAll(FileChunker.split(inputFile, chunkSize));
+            } catch (IOException e) {
+                System.err.println("Error reading the input file: " + e.getMessage());
+            }
+        }
+        if (chunks.isEmpty()) {
+            return;
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(ingestionThreads, chunks.size()));
+        // Workers only format CSV records when genre CSV files are written
+        boolean formatRecords = partitionWriters != null;
+        int aheadLimit = ingestionThreads * 2;
+        try {
+            ArrayDeque<Future<PartitionResult>> results = new ArrayDeque<>();
+            int submitted = 0;
+            int linesBefore = 0;
+            boolean readFailed = false;
+            for (FileChunker.Chunk chunk : chunks) {
+                while (submitted < chunks.size() && results.size() < aheadLimit) {
+                    FileChunker.Chunk next = chunks.get(submitted++);
+                    results.add(executor.submit(() -> partitionToBuffer(next, formatRecords)));
+                }
+                // Merge the results in order, starting as soon as the first chunk is done
+                PartitionResult result = results.remove().get();
+                if (chunk.isFirst()) {
+                    linesBefore = 0;
+                    readFailed = false;
+                }
+                // Like a file read in one go, a file stops at its first read error: the lines of the chunks after
+                // it are neither written nor numbered from a line count that is short
+                if (readFailed) {
+                    continue;
+                }
+                mergePartitionResult(result, linesBefore);
+                linesBefore += result.lineCount;
+                readFailed = result.readError != null;
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.err.println("Parallel ingestion was interrupted.");
+        } catch (ExecutionException e) {
+            // Read errors are part of the result of a chunk, so anything else is a bug and is rethrown
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw (Error) e.getCause();
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    /**
+     * Reads and validates a chunk of an input file, buffering its movies, their CSV records and its error lines in
+     * memory. Runs on a worker thread, so it must not touch the genre files or the error file.
+     * @param chunk The chunk of the file containing movie records.
+     * @param formatRecords Whether to format the CSV record of every movie.
+     * @return The buffered outcome of the chunk, with line numbers counted from the start of the chunk.
+     */
+    private PartitionResult partitionToBuffer(FileChunker.Chunk chunk, boolean formatRecords) {
+        PartitionResult result = new PartitionResult();
+        try {
+            result.lineCount = scanMovieFile(chunk.getFileName(), chunk.getStart(), chunk.getEnd(),
+                    new MovieRecordHandler() {
+                        @Override
+                        public void accept(Movie movie) {
+                            result.movies.add(movie);
+                            result.records.add(formatRecords ? convertMovieToCSV(movie) : null);
+                        }
+
+                        @Override
+                        public void reject(ErrorRecord error) {
+                            result.errors.add(error);
+                        }
+                    });
+        } catch (IOException e) {
+            result.readError = e;
+        }
+        return result;
+    }
+
+    /**
+     * Writes the buffered outcome of one chunk of an input file to the genre files and the error file.
+     * @param result The buffered outcome of a chunk.
+     * @param linesBefore The number of lines of the file before the chunk.
+     */
+    private void mergePartitionResult(PartitionResult result, int linesBefore) {
+        for (int i = 0; i < result.movies.size(); i++) {
+            writeMovieToGenreFile(result.movies.get(i), result.records.get(i));
+        }
+        for (ErrorRecord error : result.errors) {
+            logError(error.offsetLines(linesBefore));
+        }
+        if (result.readError != null) {
+            System.err.println("Error reading the input file: " + result.readError.getMessage());
+        }
+    }
+
+    // Holds the movies, genre records and rejected records of one chunk of an input file parsed by a worker thread.
+    private static class PartitionResult {
+        final List<Movie> movies = new ArrayList<>();
+        final List<String> records = new ArrayList<>();
+        final List<ErrorRecord> errors = new ArrayList<>();
+        int lineCount;
+        IOException readError;
+    }
+
+    /**
+     * Validates a single movie record, ensuring it meets expected format and data requirements.
+     * @param record A string representing a single line from the movie records file.
+     * @param tokenizer The tokenizer used to split the record into fields, reused from line to line by the caller.
+     * @return A Movie object if the record is valid, otherwise null.
+     * @throws MovieRecordException MissingFieldsException or one of the field validation exceptions if the record is invalid.
+     */
+    Movie validateMovieRecord(String record, CsvTokenizer tokenizer) throws MovieRecordException {
+        if (record == null || record.isEmpty()) {
+            return null;
+        }
+
+        // Split the record in a single scan; quoted fields may contain commas
+        return validateFields(tokenizer.tokenize(record), tokenizer);
+    }
+
+    /**
+     * Validates a single movie record held as UTF-8 bytes, such as a line of a ByteLineReader.
+     * @param line The array holding the record.
+     * @param start The index of the first byte of the record.
+     * @param end The index after the last byte of the record.
+     * @param tokenizer The tokenizer used to split the record into fields, reused from line to line by the caller.
+     * @return A Movie object if the record is valid, otherwise null.
+     * @throws MovieRecordException MissingFieldsException or one of the field validation exceptions if the record is invalid.
+     */
+    Movie validateMovieRecord(byte[] line, int start, int end, CsvTokenizer tokenizer)
+            throws MovieRecordException {
+        if (start == end) {
+            return null;
+        }
+        return validateFields(tokenizer.tokenize(line, start, end), tokenizer);
+    }
+
+    /**
+     * Checks that a tokenized record has all its fields, then validates them.
+     * @param fieldIndex The number of comma-terminated fields returned by the tokenizer.
+     * @param tokenizer The tokenizer holding the fields of the movie record.
+     * @return A new Movie object constructed from the validated fields.
+     */
+    private Movie validateFields(int fieldIndex, CsvTokenizer tokenizer) throws MovieRecordException {
+        // Expected number of fields in a movie record
+        final int expectedFieldCount = CsvTokenizer.EXPECTED_FIELD_COUNT;
+
+        // Check if all fields were filled
+        if (fieldIndex < expectedFieldCount - 1) {
+            throw new MissingFieldsException("Missing fields. Expected " + expectedFieldCount + " but found " + (fieldIndex + 1));
+        }
+
+        // Validate the individual fields and build the movie from the validated values
+        return createMovieFromFields(tokenizer);
+    }
+
+    /**
+     * Validates the fields of a movie record and creates a Movie object from them.
+     * Each field is decoded exactly once by its validation method, which returns the value the Movie stores.
+     * The fields are validated in order, so the fields after the first invalid one are never decoded.
+     *
+     * @param tokenizer The tokenizer holding the fields of the movie record.
+     * @return A new Movie object constructed from the validated fields.
+     */
+    private Movie createMovieFromFields(CsvTokenizer tokenizer) throws MovieRecordException {
+        int year = validateYear(tokenizer, 0);
+        String title = validateTitle(tokenizer.field(1));
+        int duration = validateDuration(tokenizer, 2);
+        int genreId = validateGenre(tokenizer, 3);
+        int ratingId = validateRating(tokenizer, 4);
+        double score = validateScore(tokenizer, 5);
+        for (int i = 6; i < 10; i++) {
+            validateName(tokenizer, i);
+        }
+        // Names are only pooled once the whole record is valid, so rejected records leave no names in the pool
+        String director = nameField(tokenizer, 6);
+        String actor1 = nameField(tokenizer, 7);
+        String actor2 = nameField(tokenizer, 8);
+        String actor3 = nameField(tokenizer, 9);
+        // Records spelling a genre or rating the same way share one String
+        String genres = tokenizer.codeSpelling(3, CodeTable.GENRES, genreId);
+        String rating = tokenizer.codeSpelling(4, CodeTable.RATINGS, ratingId);
+
+        return new Movie(year, title, duration, genres, genreId, rating, ratingId, score,
+                director, actor1, actor2, actor3);
+    }
+
+    /**
+     * Returns a director or actor field of a movie record, shared through the name pool when there is one.
+     * @param tokenizer The tokenizer holding the fields of the movie record.
+     * @param index The index of the name field.
+     * @return The name, or null if the record has no such field.
+     */
+    private String nameField(CsvTokenizer tokenizer, int index) {
+        return namePool == null ? tokenizer.field(index) : tokenizer.pooledField(index, namePool);
+    }
+
+    /**
+     * Validates the year field of a movie record.
+     * @param tokenizer The tokenizer holding the fields of the movie record.
+     * @param index The index of the year field.
+     * @return The year.
+     * @throws BadYearException If the year is not within the range 1990 to 1999.
+     */
+    private int validateYear(CsvTokenizer tokenizer, int index) throws BadYearException {
+        try {
+            int year = tokenizer.intField(index);
+            if (year < 1990 || year > 1999) {
+                throw new BadYearException("Invalid year: " + year + ". The year must be between 1990 and 1999.");
+            }
+            return year;
+        } catch (NumberFormatException e) {
+            throw YEAR_NOT_INTEGER;
+        }
+    }
+
+    /**
+     * Validates the title field of a movie record.
+     * @param title The title of the movie.
+     * @return The title.
+     * @throws BadTitleException If the title is missing.
+     * @throws MissingQuoteException If quotes are required but missing.
+     */
+    private String validateTitle(String title) throws BadTitleException, MissingQuoteException {
+        if (title == null || title.isEmpty()) {
+            throw MISSING_TITLE;
+        }
+        return title;
+    }
+
+    /**
+     * Validates the duration field of a movie record.
+     * @param tokenizer The tokenizer holding the fields of the movie record.
+     * @param index The index of the duration field.
+     * @return The duration in minutes.
+     * @throws BadDurationException If the duration is not between 30 and 300 minutes.
+     */
+    private int validateDuration(CsvTokenizer tokenizer, int index) throws BadDurationException {
+        try {
+            int duration = tokenizer.intField(index);
+            if (duration < 30 || duration > 300) {
+                throw new BadDurationException("Invalid duration: " + duration);
+            }
+            return duration;
+        } catch (NumberFormatException e) {
+            throw DURATION_NOT_INTEGER;
+        }
+    }
+
+    /**
+     * Validates the genre field of a movie record.
+     * @param tokenizer The tokenizer holding the fields of the movie record.
+     * @param index The index of the genre field.
+     * @return The code of the genre in CodeTable.GENRES.
+     * @throws BadGenreException If the genre is not recognized.
+     */
+    private int validateGenre(CsvTokenizer tokenizer, int index) throws BadGenreException {
+        if (tokenizer.isEmptyField(index)) {
+            throw MISSING_GENRE;
+        }
+        int genreId = tokenizer.codeField(index, CodeTable.GENRES);
+        if (genreId < 0) {
+            throw new BadGenreException("Invalid genre: " + tokenizer.field(index).toLowerCase());
+        }
+        return genreId;
+    }
+
+    /**
+     * Validates the rating field of a movie record.
+     * @param tokenizer The tokenizer holding the fields of the movie record.
+     * @param index The index of the rating field.
+     * @return The code of the rating in CodeTable.RATINGS.
+     * @throws BadRatingException If the rating is not recognized.
+     */
+    private int validateRating(CsvTokenizer tokenizer, int index) throws BadRatingException {
+        if (tokenizer.isEmptyField(index)) {
+            throw MISSING_RATING;
+        }
+        int ratingId = tokenizer.codeField(index, CodeTable.RATINGS);
+        if (ratingId < 0) {
+            throw new BadRatingException("Invalid rating: " + tokenizer.field(index).toLowerCase());
+        }
+        return ratingId;
+    }
+
+    /**
+     * Validates the score field of a movie record.
+     *
+     * @param tokenizer The tokenizer holding the fields of the movie record.
+     * @param index The index of the score field.
+     * @return The score.
+     * @throws BadScoreException If the score is not within the specified range or cannot be parsed as a double.
+     */
+    private double validateScore(CsvTokenizer tokenizer, int index) throws BadScoreException {
+        try {
+            double score = tokenizer.doubleField(index);
+            // Written so that NaN, which compares false to everything, is rejected too
+            if (!(score >= 0.0 && score <= 10.0)) {
+                throw new BadScoreException("Invalid score: " + score + ". Score must be between 0.0 and 10.0.");
+            }
+            return score;
+        } catch (NumberFormatException e) {
+            throw SCORE_NOT_DOUBLE;
+        }
+    }
+
+    /**
+     * Validates a name field in a movie record, without decoding it.
+     *
+     * @param tokenizer The tokenizer holding the fields of the movie record.
+     * @param index The index of the director or actor field.
+     * @throws BadNameException If the name is missing, empty, or only whitespace.
+     */
+    private void validateName(CsvTokenizer tokenizer, int index) throws BadNameException {
+        if (tokenizer.isEmptyField(index)) {
+            throw MISSING_NAME;
+        }
+    }
+
+    /**
+     * Writes a movie's data to a genre-specific CSV file, and serializes it into its genre file when running
+     * the single-pass pipeline. If the genre has not been written to before, it flags it as written to prevent
+     * duplicate headers or initializations.
+     *
+     * @param movie The movie object to write to the file.
+     * @param movieRecord The movie already formatted as a CSV record, or null to format it here.
+     */
+    private void writeMovieToGenreFile(Movie movie, String movieRecord) {
+        int genreIndex = movie.getGenreId();
+        if (partitionWriters != null) {
+            // Convert the movie object to a CSV formatted String and write it to the file of its genre
+            writeRecordToGenreFile(genreIndex, movieRecord != null ? movieRecord : convertMovieToCSV(movie));
+        }
+        if (genreSerializers != null) {
+            try {
+                genreSerializers.write(genreIndex, movie);
+                genreWrittenFlag[genreIndex] = true;
+            } catch (IOException e) {
+                System.err.println("Error serializing movie to genre file: " + e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * Appends an already formatted movie record to the CSV file of the given genre and flags the genre as written.
+     * The record goes through the genre writers of the current partitioning run, which keep the file open.
+     *
+     * @param genreIndex The index of the genre in the predefined list of genres.
+     * @param movieRecord The movie record in CSV format.
+     */
+    private void writeRecordToGenreFile(int genreIndex, String movieRecord) {
+        try {
+            // Write the formatted movie record to the file
+            partitionWriters.write(genreIndex, movieRecord);
+            // Flag the genre as having been written if it hasn't been already
+            if (!genreWrittenFlag[genreIndex]) {
+                genreWrittenFlag[genreIndex] = true;
+            }
+        } catch (IOException e) {
+            System.err.println("Error writing movie to genre file: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Converts a Movie object into a CSV-formatted string.
+     * A title or name holding a comma is quoted, so that part 2 reads it back as one field, as the reader of the
+     * input files does.
+     *
+     * @param movie The Movie object to convert.
+     * @return A String representing the movie in CSV format.
+     */
+    String convertMovieToCSV(Movie movie) {
+        return format("%d, %s, %d, %s, %s, %f, %s, %s, %s, %s",
+                movie.getYear(),
+                quoteField(movie.getTitle()),
+                movie.getDuration(),
+                movie.getGenres(),
+                movie.getRating(),
+                movie.getScore(),
+                quoteField(movie.getDirector()),
+                quoteField(movie.getActor1()),
+                quoteField(movie.getActor2()),
+                quoteField(movie.getActor3()));
+    }
+
+    // Quotes a field holding a comma. Valid fields never hold a quote, as the reader drops them
+    private static String quoteField(String field) {
+        return field.indexOf(',') < 0 ? field : "\"" + field + "\"";
+    }
+
+    /**
+     * Writes genre filenames to the second part manifest file.
+     * This method is used to prepare the manifest for the next phase of processing,
+     * listing each genre file that has been created or modified.
+     */
+    public void writeGenresToManifest() {
+        try (PrintWriter manifestWriter = new PrintWriter(new FileWriter(PART2_MANIFEST))) {
+            for (String genre : GENRES) {
+                // For each genre, write the corresponding file name to the manifest
+                String fileName = genre + ".csv";
+                manifestWriter.println(fileName);
+            }
+        } catch (IOException e) {
+            System.err.println("Error writing to part2_manifest.txt: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Streams movies from a CSV file straight into a serialized movie file.
+     * This method reads each line from the given file, validates and converts it into a Movie object,
+     * and writes it to the serialized file right away, so only one block of movies is held in memory
+     * whatever the number of records. Invalid records are skipped. The serialized file is only created
+     * once the first valid movie is found. It is written to a temporary file that replaces the serialized file once
+     * complete, so a file that fails part-way leaves no truncated serialized file behind.
+     * @param fileName The name of the CSV file from which to load movies.
+     * @param binaryFileName The name of the file where the serialized data will be stored.
+     * @param errors The list the messages of the errors met are added to.
+     * @return The number of movies serialized, or 0 if the serialized file could not be written in full.
+     */
+    private long serializeMoviesFromCSV(String fileName, String binaryFileName, List<String> errors) {
+        File temporary = new File(binaryFileName + ".tmp");
+        MovieColumnWriter writer = null;
+        long movieCount = 0;
+        boolean complete = false;
+        CsvTokenizer tokenizer = new CsvTokenizer();
+        try (ByteLineReader reader = new ByteLineReader(fileName)) {
+            while (reader.nextLine()) {
+                try {
+                    Movie movie = validateMovieRecord(reader.getBuffer(), reader.getLineStart(), reader.getLineEnd(),
+                            tokenizer);
+                    if (movie != null) {
+                        if (writer == null) {
+                            writer = new MovieColumnWriter(temporary.getPath());
+                        }
+                        writer.write(movie);
+                        movieCount++;
+                    }
+                } catch (MovieRecordException e) {
+                    e.getMessage();
+                }
+            }
+            complete = true;
+        } catch (FileNotFoundException e) {
+            e.getMessage();
+//            System.out.println("File " + fileName + "not found.");
+        } catch (IOException e) {
+            errors.add("Error reading the file " + fileName + " or writing the file " + binaryFileName +
+                    ": " + e.getMessage() + ".");
+        } finally {
+            if (writer != null) {
+                try {
+                    writer.close();
+                    if (complete) {
+                        Files.move(temporary.toPath(), new File(binaryFileName).toPath(),
+                                StandardCopyOption.REPLACE_EXISTING);
+                    }
+                } catch (IOException e) {
+                    errors.add("Error serializing movies array to file " + binaryFileName + ".");
+                    complete = false;
+                }
+                if (complete) {
+                    int genreIndex = getGenreIndexOfFile(binaryFileName);
+                    if (genreIndex >= 0) {
+                        countGenreOutput("ser", genreIndex, movieCount, writer.getBytesWritten());
+                    }
+                } else {
+                    temporary.delete();
+                }
+            }
+        }
+        return complete ? movieCount : 0;
+    }
+
+    /**
+     * Serializes an array of Movie objects to a file. This method takes an array of Movie objects
+     * and writes it to a specified file in the binary column format of MovieColumnWriter, which stores
+     * each field as a column and each distinct name once, and can be reversed (deserialized) later.
+     *
+     * @param movies The array of Movie objects to be serialized.
+     * @param fileName The name of the file where the serialized data will be stored.
+     */
+    public void serializeMovieArray(Movie[] movies, String fileName) {
+        try {
+            MovieColumnFile.write(movies, fileName);
+        } catch (FileNotFoundException e) {
+            System.out.println("File " + fileName + " not found.");
+        } catch (IOException e) {
+            System.out.println("Error serializing movies array to file " + fileName + ".");
+        }
+    }
+
+    /**
+     * Deserializes arrays of Movie objects from files listed in a manifest file. Each file contains
+     * a serialized array of Movie objects corresponding to a specific genre. This method reads the manifest file,
+     * deserializes each listed file into an array of Movie objects, and stores these arrays in a 2D array
+     * indexed by genre.
+     *
+     * @param PART3_MANIFEST The path to the manifest file listing the serialized movie files.
+     * @return A 2D array of Movie objects, where each sub-array contains movies of a specific genre.
+     */
+    public Movie[][] deserializeMovieArray(String PART3_MANIFEST) {
+        // Initialize a 2D array to hold the arrays of Movie objects, one per genre
+        Movie[][] movies2D = new Movie[GENRES.length][];
+        // Deserialize every file into an array of Movie objects and store it in the 2D array
+        loadGenreFiles(PART3_MANIFEST, "load", movies2D, fileName -> MovieColumnFile.readAll(fileName, namePool));
+        return movies2D;
+    }
+
+    /**
+     * Opens the serialized movie files listed in a manifest file without loading them. Each genre is read through
+     * a MappedMovieStore, which maps its file and decodes a movie only when it is asked for.
+     *
+     * @param PART3_MANIFEST The path to the manifest file listing the serialized movie files.
+     * @return The stores indexed by genre, with null for genres without a file. The stores stay open.
+     */
+    public MovieStore[] openMovieStores(String PART3_MANIFEST) {
+        MovieStore[] stores = new MovieStore[GENRES.length];
+        loadGenreFiles(PART3_MANIFEST, "map", stores, fileName -> MappedMovieStore.open(fileName, namePool));
+        return stores;
+    }
+
+    /**
+     * Loads the serialized movie files listed in a manifest file into ColumnarMovieStores, one primitive array per
+     * field, with the director and actor names of every genre held once in a shared dictionary.
+     *
+     * @param PART3_MANIFEST The path to the manifest file listing the serialized movie files.
+     * @return The stores indexed by genre, with null for genres without a file.
+     */
+    public MovieStore[] loadColumnarStores(String PART3_MANIFEST) {
+        MovieStore[] stores = new MovieStore[GENRES.length];
+        ColumnarMovieStore.NameDictionary names = new ColumnarMovieStore.NameDictionary();
+        loadGenreFiles(PART3_MANIFEST, "columnar", stores, fileName -> ColumnarMovieStore.load(fileName, names));
+        names.freeze();
+        return stores;
+    }
+
+    /**
+     * Loads the serialized movie files listed in a manifest file into OffHeapMovieStores, which keep every movie in
+     * direct memory, so a very large catalog leaves the heap, and the garbage collector, almost untouched.
+     *
+     * @param PART3_MANIFEST The path to the manifest file listing the serialized movie files.
+     * @return The stores indexed by genre, with null for genres without a file.
+     */
+    public MovieStore[] loadOffHeapStores(String PART3_MANIFEST) {
+        MovieStore[] stores = new MovieStore[GENRES.length];
+        loadGenreFiles(PART3_MANIFEST, "off_heap", stores, OffHeapMovieStore::load);
+        return stores;
+    }
+
+    /**
+     * Loads or opens every genre file listed in a manifest file, one after another or on the genre threads, and
+     * reports the genres whose file could not be read in genre order.
+     * @param PART3_MANIFEST The path to the manifest file listing the serialized movie files.
+     * @param mode How the files are read, as recorded in the deserialization metrics.
+     * @param loaded The array receiving what every file is read into, indexed by genre. The genres it already
+     *               holds are not read again.
+     * @param loader Reads a genre file.
+     */
+    private <T> void loadGenreFiles(String PART3_MANIFEST, String mode, T[] loaded, GenreLoader<T> loader) {
+        String[] binaryFileNames = readGenreFileNames(PART3_MANIFEST);
+        IOException[] errors = runGenreJobs(GENRES.length, i -> {
+            // A genre already read is kept
+            if (binaryFileNames[i] != null && loaded[i] == null) {
+                long start = System.nanoTime();
+                loaded[i] = loader.load(binaryFileNames[i]);
+                deserializeTimer(binaryFileNames[i], mode).recordSince(start);
+            }
+        });
+        for (int i = 0; i < GENRES.length; i++) {
+            if (errors[i] instanceof FileNotFoundException || errors[i] instanceof NoSuchFileException) {
+                System.err.println("Could not find file for genre: " + GENRES[i]);
+            } else if (errors[i] != null) {
+                System.err.println("Error deserializing file for genre: " + GENRES[i]);
+            }
+        }
+    }
+
+    /**
+     * Runs a job for every index from 0 to count - 1, one after another, or at the same time on the genre threads
+     * when there are several. Every job works on its own genre, so the jobs share nothing but thread-safe state.
+     * @param count The number of jobs.
+     * @param job The job to run for every index.
+     * @return The exception every job failed with, indexed like the jobs, with null for the jobs that succeeded.
+     */
+    private IOException[] runGenreJobs(int count, GenreJob job) {
+        IOException[] errors = new IOException[count];
+        if (genreThreads <= 1 || count <= 1) {
+            for (int i = 0; i < count; i++) {
+                try {
+                    job.run(i);
+                } catch (IOException e) {
+                    errors[i] = e;
+                }
+            }
+            return errors;
+        }
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(genreThreads, count));
+        try {
+            List<Future<Void>> results = new ArrayList<>();
+            for (int i = 0; i < count; i++) {
+                int index = i;
+                results.add(executor.submit(() -> {
+                    job.run(index);
+                    return null;
+                }));
+            }
+            for (int i = 0; i < count; i++) {
+                try {
+                    results.get(i).get();
+                } catch (ExecutionException e) {
+                    // Only I/O failures belong to a single genre; anything else is a bug and is rethrown
+                    if (e.getCause() instanceof IOException) {
+                        errors[i] = (IOException) e.getCause();
+                    } else if (e.getCause() instanceof RuntimeException) {
+                        throw (RuntimeException) e.getCause();
+                    } else {
+                        throw (Error) e.getCause();
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            System.err.println("Parallel genre processing was interrupted.");
+        } finally {
+            executor.shutdownNow();
+        }
+        return errors;
+    }
+
+    /**
+     * Reads the serialized movie files listed in a manifest file through the kind of store set by setStoreType.
+     * @param PART3_MANIFEST The path to the manifest file listing the serialized movie files.
+     * @param stores The stores already open, indexed by genre, which are kept. It receives the stores opened.
+     * @return The stores.
+     */
+    private MovieStore[] openStores(String PART3_MANIFEST, MovieStore[] stores) {
+        ColumnarMovieStore.NameDictionary names = new ColumnarMovieStore.NameDictionary();
+        loadGenreFiles(PART3_MANIFEST, storeMode(), stores, storeLoader(names));
+        names.freeze();
+        return stores;
+    }
+
+    /**
+     * Reads one serialized genre file through the kind of store set by setStoreType, reporting a file that cannot be
+     * read the way loadGenreFiles does.
+     * @param fileName The name of the genre file.
+     * @param genre The index of the genre.
+     * @param names The dictionary shared by the columnar stores of the catalog.
+     * @return The store, or null if the file cannot be read.
+     */
+    private MovieStore openStore(String fileName, int genre, ColumnarMovieStore.NameDictionary names) {
+        long start = System.nanoTime();
+        try {
+            MovieStore store = storeLoader(names).load(fileName);
+            deserializeTimer(fileName, storeMode()).recordSince(start);
+            return store;
+        } catch (FileNotFoundException | NoSuchFileException e) {
+            System.err.println("Could not find file for genre: " + GENRES[genre]);
+        } catch (IOException e) {
+            System.err.println("Error deserializing file for genre: " + GENRES[genre]);
+        }
+        return null;
+    }
+
+    // Reads a genre file through the kind of store set by setStoreType, as loadColumnarStores, loadOffHeapStores
+    // and openMovieStores do
+    private GenreLoader<MovieStore> storeLoader(ColumnarMovieStore.NameDictionary names) {
+        switch (storeType) {
+            case COLUMNAR:
+                return fileName -> ColumnarMovieStore.load(fileName, names);
+            case OFF_HEAP:
+                return OffHeapMovieStore::load;
+            default:
+                return fileName -> MappedMovieStore.open(fileName, namePool);
+        }
+    }
+
+    // The mode the deserialization metrics record for the kind of store set by setStoreType
+    private String storeMode() {
+        switch (storeType) {
+            case COLUMNAR:
+                return "columnar";
+            case OFF_HEAP:
+                return "off_heap";
+            default:
+                return "map";
+        }
+    }
+
+    private PipelineMetrics.Histogram deserializeTimer(String fileName, String mode) {
+        return metrics.histogram("movie_deserialize_seconds",
+                "Time taken to map or load a serialized genre file, by kind of store.", "file", fileName, "mode", mode);
+    }
+
+    /**
+     * Runs a query (see MovieQuery) over the serialized movie files listed in a manifest file and prints the movies
+     * found, followed by the number of genre partitions, blocks and rows the query went through. Only the genre files
+     * the query reaches are opened, so the genres ruled out by its genre condition are never read.
+     *
+     * @param PART3_MANIFEST The path to the manifest file listing the serialized movie files.
+     * @param query The query text, such as "genre in (drama, crime) and year >= 1995 order by score limit 20".
+     * @return The movies found, or null if the query is not valid.
+     */
+    public List<Movie> runQuery(String PART3_MANIFEST, String query) {
+        MovieStore[] stores = new MovieStore[GENRES.length];
+        try {
+            return runQuery(PART3_MANIFEST, query, stores);
+        } finally {
+            for (MovieStore store : stores) {
+                if (store instanceof Closeable) {
+                    try {
+                        ((Closeable) store).close();
+                    } catch (IOException e) {
+                        System.err.println("Error closing a movie file: " + e.getMessage());
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Runs a query like runQuery(String, String), keeping the genre stores it opens, so they can be navigated
+     * afterwards without reading their files again (see do_part3(String, MovieStore[])).
+     *
+     * @param PART3_MANIFEST The path to the manifest file listing the serialized movie files.
+     * @param query The query text.
+     * @param catalog The genre stores already open, indexed by genre, which the query reuses. It receives the stores
+     *                the query opens, which stay open.
+     * @return The movies found, or null if the query is not valid.
+     */
+    public List<Movie> runQuery(String PART3_MANIFEST, String query, MovieStore[] catalog) {
+        MovieQuery parsed;
+        try {
+            parsed = MovieQuery.parse(query);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            return null;
+        }
+        long start = System.nanoTime();
+        String[] binaryFileNames = readGenreFileNames(PART3_MANIFEST);
+        boolean[] present = new boolean[GENRES.length];
+        for (int i = 0; i < GENRES.length; i++) {
+            present[i] = binaryFileNames[i] != null;
+        }
+        // Only the genres the query reaches are opened, as it reaches them
+        ColumnarMovieStore.NameDictionary names = new ColumnarMovieStore.NameDictionary();
+        try {
+            MovieQuery.Result result = parsed.run(present, genre -> catalog[genre] != null ? catalog[genre]
+                    : (catalog[genre] = openStore(binaryFileNames[genre], genre, names)));
+            names.freeze();
+            stageTimer("query").recordSince(start);
+            List<Movie> movies = result.getMovies();
+            for (int i = 0; i < movies.size(); i++) {
+                System.out.println((i + 1) + ": " + movies.get(i));
+            }
+            System.out.println(movies.size() + " movies returned, " + result.getRowsMatched() + " of "
+                    + result.getRowsScanned() + " rows matched, " + result.getPartitionsScanned()
+                    + " genres scanned, " + result.getPartitionsSkipped() + " skipped, "
+                    + result.getBlocksSkipped() + " blocks skipped.");
+            return movies;
+        } catch (UncheckedIOException e) {
+            System.err.println("Error reading the movie files: " + e.getCause().getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Reads the part 3 manifest and matches each listed file to the genre it is named after.
+     *
+     * @param PART3_MANIFEST The path to the manifest file listing the serialized movie files.
+     * @return The file names indexed by genre, with null for genres the manifest does not list.
+     */
+    private String[] readGenreFileNames(String PART3_MANIFEST) {
+        String[] binaryFileNames = new String[GENRES.length];
+        File part3ManifestFile = new File(PART3_MANIFEST);
+
+        // Check each listed file to find its matching genre
+        try (BufferedReader br = new BufferedReader(new FileReader(part3ManifestFile))) {
+            String binaryFileName;
+            while ((binaryFileName = br.readLine()) != null) {
+                // The file is named after its genre
+                int i = getGenreIndexOfFile(binaryFileName);
+                if (i < 0) {
+                    System.err.println("No matching genre found for file: " + binaryFileName);
+                } else {
+                    binaryFileNames[i] = binaryFileName;
+                }
+            }
+        } catch (FileNotFoundException e) {
+            System.err.println("Part 3 manifest file not found.");
+        } catch (IOException e) {
+            System.err.println("Error reading the Part 3 manifest file.");
+        }
+        return binaryFileNames;
+    }
+
+    /**
+     * Retrieves the index of the genre a genre file is named after, such as drama.ser for the drama genre.
+     *
+     * @param fileName The name of the genre file.
+     * @return The index of the genre, or -1 if the file is not named after a genre.
+     */
+    private int getGenreIndexOfFile(String fileName) {
+        int extension = fileName.lastIndexOf('.');
+        return CodeTable.GENRES.lookup(fileName, 0, extension < 0 ? fileName.length() : extension);
+    }
+
+    /**
+     * Provides a navigation system for browsing movies stored in an array of stores, one per genre.
+     * Users can select genres, navigate through movies within those genres, and view details of specific movies.
+     * They can also find movies across every genre by director, actor, year, score or duration, through catalog
+     * indexes (see CatalogIndex) built the first time they search. Navigation commands are input through the console.
+     *
+     * @param allMovies An array of movie stores, categorized by genre.
+     */
+    private void navigateMovieArrays(MovieStore[] allMovies) {
+        Scanner scanner = new Scanner(System.in);
+        int currentGenre = 0; // Index of the currently selected genre.
+        int currentMovieIndex = 0; // Index of the currently highlighted movie within the selected genre.
+        CatalogIndex index = null; // Built the first time movies are searched for.
+
+        String choice;
+        do {
+            // Display the main menu and prompt for a choice.
+            displayMainMenu(allMovies, currentGenre);
+            System.out.print("Enter Your Choice: ");
+            choice = scanner.nextLine().toLowerCase();
+
+            // A genre file that cannot be read any more leaves the user in the menu instead of ending navigation
+            try {
+                switch (choice.toLowerCase()) {
+                    case "s":
+                        // Select a new genre to navigate.
+                        currentGenre = selectGenre(allMovies, scanner);
+                        currentMovieIndex = 0; // Reset movie index upon genre change.
+                        break;
+                    case "n":
+                        // Navigate within the selected genre if it contains movies.
+                        if (allMovies[currentGenre] != null && allMovies[currentGenre].size() > 0) {
+                            currentMovieIndex = navigateGenreMovies(allMovies[currentGenre], currentMovieIndex,
+                                    scanner);
+                        } else {
+                            System.out.println("No records in this genre.");
+                        }
+                        break;
+                    case "f":
+                        // Search every genre through the catalog indexes, building them on the first search.
+                        if (index == null) {
+                            long start = System.nanoTime();
+                            index = CatalogIndex.build(allMovies);
+                            stageTimer("index").recordSince(start);
+                            index.printReport(System.out);
+                        }
+                        findMovies(index, scanner);
+                        break;
+                    case "x":
+                        System.out.println("Exiting navigation.");
+                        break;
+                    default:
+                        System.out.println("Invalid choice. Please try again.");
+                        break;
+                }
+            } catch (UncheckedIOException e) {
+                System.err.println("Error reading the movie files: " + e.getCause().getMessage());
+            }
+        } while (!choice.equals("x"));
+        scanner.close();
+    }
+
+    /**
+     * Displays the main menu with options to select a genre, navigate within a genre, search every genre, or exit the
+     * navigation system.
+     * Shows the number of records available in the currently selected genre.
+     *
+     * @param allMovies An array of movie stores, categorized by genre.
+     * @param currentGenre The index of the currently selected genre.
+     */
+
+    private void displayMainMenu(MovieStore[] allMovies, int currentGenre) {
+        System.out.println("-------------------------------");
+        System.out.println("            Main Menu          ");
+        System.out.println("-------------------------------");
+        System.out.println("Welcom to the movie navigation system created by Hongyu!");
+        System.out.println();
+        System.out.println("s: Select a movie array to navigate");
+        if (allMovies[currentGenre] != null) {
+            System.out.println("n: Navigate " + GENRES[currentGenre] +
+                    " movies (" + allMovies[currentGenre].size() + " records)");
+        } else {
+            System.out.println("n: Navigate musical movies (0 records)");
+        }
+        System.out.println("f: Find movies by director, actor, year, score or duration");
+        System.out.println("x: Exit");
+        System.out.println("-------------------------------");
+    }
+
+    /**
+     * Allows the user to select a genre to navigate. Presents a list of genres, each with a count of available movies.
+     * Waits for user input and returns the index of the selected genre.
+     *
+     * @param allMovies An array of movie stores, categorized by genre.
+     * @param scanner A Scanner object for reading user input.
+     * @return The index of the selected genre.
+     */
+    private int selectGenre(MovieStore[] allMovies, Scanner scanner) {
+        int genreChoice = -1;
+        while (genreChoice < 0 || genreChoice >= GENRES.length) {
+            System.out.println("-------------------------------");
+            System.out.println("         Genre Sub-Menu        ");
+            System.out.println("-------------------------------");
+            for (int i = 0; i < GENRES.length; i++) {
+                if (allMovies[i] != null) {
+                    System.out.println((i + 1) + ": " + GENRES[i] + " (" + allMovies[i].size() + " movies)");
+                } else {
+                    System.out.println((i + 1) + ": " + GENRES[i] + " (0 movies)");
+                }
+            }
+            System.out.println("-------------------------------");
+            System.out.print("Enter Your Choice: ");
+
+            try {
+                genreChoice = Integer.parseInt(scanner.nextLine()) - 1; // Convert to 0-based index
+                if (genreChoice < 0 || genreChoice >= GENRES.length) {
+                    System.out.println("Invalid choice. Please try again.");
+                } else {
+                    return genreChoice;
+                }
+            } catch (NumberFormatException e) {
+                System.out.println("Invalid input. Please enter a number.");
+            }
+        }
+        return genreChoice; // This will only execute if a valid choice is made
+    }
+
+    /**
+     * Asks the user what to search for, then looks it up in the catalog indexes and displays the movies found,
+     * at most SEARCH_RESULTS_SHOWN of them. Invalid input returns to the main menu.
+     *
+     * @param index The indexes over the movie stores being navigated.
+     * @param scanner A Scanner object for reading user input.
+     */
+    private void findMovies(CatalogIndex index, Scanner scanner) {
+        System.out.println("-------------------------------");
+        System.out.println("        Search Sub-Menu        ");
+        System.out.println("-------------------------------");
+        System.out.println("d: Movies of a director");
+        System.out.println("a: Movies of an actor");
+        System.out.println("y: Movies of a year");
+        System.out.println("s: Movies within a score range");
+        System.out.println("t: Movies within a duration range");
+        System.out.println("-------------------------------");
+        System.out.print("Enter Your Choice: ");
+        String choice = scanner.nextLine().trim().toLowerCase();
+
+        long[] rows;
+        try {
+            switch (choice) {
+                case "d":
+                    System.out.print("Enter the name of the director: ");
+                    rows = index.byDirector(scanner.nextLine().trim());
+                    break;
+                case "a":
+                    System.out.print("Enter the name of the actor: ");
+                    rows = index.byActor(scanner.nextLine().trim());
+                    break;
+                case "y":
+                    System.out.print("Enter the year: ");
+                    rows = index.byYear(Integer.parseInt(scanner.nextLine().trim()));
+                    break;
+                case "s":
+                    System.out.print("Enter the lowest and highest score: ");
+                    String[] scores = scanner.nextLine().trim().split("\\s+");
+                    rows = index.byScoreRange(Double.parseDouble(scores[0]),
+                            Double.parseDouble(scores[scores.length - 1]));
+                    break;
+                case "t":
+                    System.out.print("Enter the shortest and longest duration in minutes: ");
+                    String[] durations = scanner.nextLine().trim().split("\\s+");
+                    rows = index.byDurationRange(Integer.parseInt(durations[0]),
+                            Integer.parseInt(durations[durations.length - 1]));
+                    break;
+                default:
+                    System.out.println("Invalid choice. Please try again.");
+                    return;
+            }
+        } catch (NumberFormatException e) {
+            System.out.println("Invalid input. Please enter a number.");
+            return;
+        }
+
+        for (int i = 0; i < rows.length && i < SEARCH_RESULTS_SHOWN; i++) {
+            System.out.println((i + 1) + ": " + index.movie(rows[i]));
+        }
+        if (rows.length > SEARCH_RESULTS_SHOWN) {
+            System.out.println("... and " + (rows.length - SEARCH_RESULTS_SHOWN) + " more.");
+        }
+        System.out.println(rows.length + " movies found.");
+    }
+
+    /**
+     * Allows the user to navigate through movies of a selected genre.
+     * The user can move forwards or backwards through the list of movies based on numerical input.
+     * Entering '0' returns the user to the main menu. Positive numbers move forward through the list,
+     * while negative numbers move backwards. The method ensures navigation remains within the bounds of the movie store.
+     *
+     * @param movies A store holding the movies of a specific genre.
+     * @param currentMovieIndex The current index within the movies array being displayed.
+     * @param scanner A Scanner object for reading user input from the console.
+     * @return The new current movie index after navigation.
+     */
+    private int navigateGenreMovies(MovieStore movies, int currentMovieIndex, Scanner scanner) {
+        int choice;
+        do {
+            System.out.println("Navigating " + movies.get(0).getGenres() + " movies (" + movies.size() + ")");
+            System.out.print("Enter Your Choice (0 to return to the main menu): ");
+            choice = Integer.parseInt(scanner.nextLine());
+
+            if (choice != 0) {
+                int prevIndex = currentMovieIndex;
+                if (choice < 0) {
+                    currentMovieIndex = Math.max(0, currentMovieIndex + choice);
+                } else {
+                    currentMovieIndex = Math.min(movies.size() - 1, currentMovieIndex + choice - 1);
+                }
+                displayMovies(movies, prevIndex, currentMovieIndex);
+            }
+        } while (choice != 0);
+        return currentMovieIndex;
+    }
+
+    /**
+     * Displays a range of movies from a given array, specified by starting and ending indices.
+     * This function is designed to showcase a sequential list of movies to the user, handling cases where
+     * the index is out of bounds by displaying appropriate messages (BOF for beginning of file, EOF for end of file).
+     *
+     * @param movies A store of Movie objects to display.
+     * @param prevIndex The previous index from which the user navigated.
+     * @param newIndex The new index to which the user has navigated.
+     */
+    private void displayMovies(MovieStore movies, int prevIndex, int newIndex) {
+        if (newIndex < 0 || newIndex >= movies.size()) {
+            System.out.println("Index out of bounds. No movies to display.");
+            return;
+        }
+        // Determine the start and end indices for displaying movies.
+        int startIndex = Math.min(prevIndex, newIndex);
+        int endIndex = Math.max(prevIndex, newIndex);
+
+        // Loop through the specified range and display each movie.
+        for (int i = startIndex; i <= endIndex; i++) {
+            if (i < 0) {
+                System.out.println("BOF has been reached.");
+                break;
+            } else if (i >= movies.size()) {
+                System.out.println("EOF has been reached.");
+                break;
+            } else {
+                System.out.println((i+1) + ": " + movies.get(i));
+            }
+        }
+    }
+}
@@ -0,0 +1,575 @@
+// -----------------------------------------------------
+// The MovieQuery class selects movies from a catalog of genre stores, such as the stores opened by
+// MovieManager.openMovieStores, with a small query language, for example:
+//   genre in (drama, crime) and year >= 1995 and score > 7.5 order by score limit 20
+// A query is a list of conditions joined by "and", optionally followed by "order by" a numeric field and a limit.
+// Conditions are "genre in (...)", "genre = name" and comparisons (=, <, <=, >, >=) of year, duration or score
+// with a number. Ordering is from the highest value down unless "asc" follows the field.
+// Running a query skips every genre the conditions rule out, by genre or by the statistics of the genre store, and
+// every block of a store its statistics rule out. The genre stores can be opened as the query reaches them, so the
+// genres ruled out by the genre condition are never opened. It tests the remaining rows on their primitive year,
+// duration and score columns, and only builds a Movie for the rows that are returned. When the query is ordered
+// and limited, the best rows are kept in a heap bounded by the limit instead of sorting every match.
+// -----------------------------------------------------
+
+package movies;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class MovieQuery {
+
+    /**
+     * The numeric fields a query can compare and order by.
+     */
+    public enum Field { YEAR, DURATION, SCORE }
+
+    private static final List<String> OPERATORS = Arrays.asList("=", "<", "<=", ">", ">=");
+
+    private final boolean[] genres = new boolean[CodeTable.GENRES.size()];
+    private int minYear = Integer.MIN_VALUE;
+    private int maxYear = Integer.MAX_VALUE;
+    private int minDuration = Integer.MIN_VALUE;
+    private int maxDuration = Integer.MAX_VALUE;
+    private double minScore = Double.NEGATIVE_INFINITY;
+    private double maxScore = Double.POSITIVE_INFINITY;
+    private Field orderBy;
+    private boolean ascending;
+    private int limit = Integer.MAX_VALUE;
+
+    /**
+     * Creates a query matching every movie of the catalog.
+     */
+    public MovieQuery() {
+        Arrays.fill(genres, true);
+    }
+
+    /**
+     * Parses a query.
+     * @param query The query text.
+     * @return The parsed query.
+     * @throws IllegalArgumentException If the text is not a valid query.
+     */
+    public static MovieQuery parse(String query) {
+        return new Parser(query).parse();
+    }
+
+    /**
+     * Restricts the query to some genres, in addition to any genre condition already set.
+     * @param names The names of the genres, ignoring case.
+     * @return This query.
+     * @throws IllegalArgumentException If a name is not a genre.
+     */
+    public MovieQuery genres(String... names) {
+        boolean[] listed = new boolean[genres.length];
+        for (String name : names) {
+            int code = CodeTable.GENRES.lookup(name);
+            if (code < 0) {
+                throw new IllegalArgumentException("Unknown genre: " + name);
+            }
+            listed[code] = true;
+        }
+        for (int i = 0; i < genres.length; i++) {
+            genres[i] &= listed[i];
+        }
+        return this;
+    }
+
+    /**
+     * Restricts the query to an inclusive range of years.
+     * @param min The earliest year.
+     * @param max The latest year.
+     * @return This query.
+     */
+    public MovieQuery year(int min, int max) {
+        minYear = Math.max(minYear, min);
+        maxYear = Math.min(maxYear, max);
+        return this;
+    }
+
+    /**
+     * Restricts the query to an inclusive range of durations.
+     * @param min The shortest duration in minutes.
+     * @param max The longest duration in minutes.
+     * @return This query.
+     */
+    public MovieQuery duration(int min, int max) {
+        minDuration = Math.max(minDuration, min);
+        maxDuration = Math.min(maxDuration, max);
+        return this;
+    }
+
+    /**
+     * Restricts the query to an inclusive range of scores.
+     * @param min The lowest score.
+     * @param max The highest score.
+     * @return This query.
+     */
+    public MovieQuery score(double min, double max) {
+        minScore = Math.max(minScore, min);
+        maxScore = Math.min(maxScore, max);
+        return this;
+    }
+
+    /**
+     * Orders the movies returned by a field. Movies with equal values keep their catalog order.
+     * @param field The field to order by.
+     * @param ascending True to return the lowest values first, false to return the highest values first.
+     * @return This query.
+     */
+    public MovieQuery orderBy(Field field, boolean ascending) {
+        this.orderBy = field;
+        this.ascending = ascending;
+        return this;
+    }
+
+    /**
+     * Limits the number of movies returned.
+     * @param limit The largest number of movies to return.
+     * @return This query.
+     */
+    public MovieQuery limit(int limit) {
+        if (limit < 0) {
+            throw new IllegalArgumentException("The limit must not be negative: " + limit);
+        }
+        this.limit = limit;
+        return this;
+    }
+
+    /**
+     * Opens the store of a genre of a catalog, for a query that has to read it.
+     */
+    public interface GenreOpener {
+        /**
+         * Opens the store of a genre.
+         * @param genre The index of the genre.
+         * @return The store, or null if it cannot be opened.
+         */
+        MovieStore open(int genre);
+    }
+
+    /**
+     * Runs the query over a catalog.
+     * @param catalog The movie stores indexed by genre, with null for genres without movies.
+     * @return The movies found, with statistics on the work done to find them.
+     * @throws java.io.UncheckedIOException If a store cannot be read from its file.
+     */
+    public Result run(MovieStore[] catalog) {
+        boolean[] present = new boolean[catalog.length];
+        for (int genre = 0; genre < catalog.length; genre++) {
+            present[genre] = catalog[genre] != null;
+        }
+        return run(present, genre -> catalog[genre]);
+    }
+
+    /**
+     * Runs the query over a catalog whose genre stores are opened as the query needs them, so a genre ruled out by
+     * the genre condition, or reached once enough unordered movies were found, is never opened. A genre ruled out
+     * by the statistics of its store is opened to read them.
+     * @param present Which genres of the catalog have a store, indexed by genre.
+     * @param opener Opens the store of a genre. A genre whose store cannot be opened is left out of the query.
+     * @return The movies found, with statistics on the work done to find them.
+     * @throws java.io.UncheckedIOException If a store cannot be read from its file.
+     */
+    public Result run(boolean[] present, GenreOpener opener) {
+        Result result = new Result();
+        TopRows top = new TopRows(orderBy == null ? 0 : limit);
+        MovieStore[] catalog = new MovieStore[present.length];
+        boolean full = false;
+        for (int genre = 0; genre < present.length; genre++) {
+            if (!present[genre]) {
+                continue;
+            }
+            if (full || !genres[genre] || isEmpty()) {
+                result.partitionsSkipped++;
+                continue;
+            }
+            MovieStore movies = catalog[genre] = opener.open(genre);
+            if (movies == null) {
+                continue;
+            }
+            if (!mayMatch(movies.getStats())) {
+                result.partitionsSkipped++;
+                continue;
+            }
+            result.partitionsScanned++;
+            int blockSize = movies.getBlockSize();
+            for (int block = 0; !full && block * blockSize < movies.size(); block++) {
+                if (!mayMatch(movies.getBlockStats(block))) {
+                    result.blocksSkipped++;
+                    continue;
+                }
+                int end = Math.min(movies.size(), (block + 1) * blockSize);
+                for (int i = block * blockSize; i < end; i++) {
+                    result.rowsScanned++;
+                    if (!matches(movies, i)) {
+                        continue;
+                    }
+                    result.rowsMatched++;
+                    if (orderBy != null) {
+                        top.offer(value(movies, i), CatalogIndex.row(genre, i));
+                        continue;
+                    }
+                    result.movies.add(movies.get(i));
+                    // Without an order the first rows found are returned, so scanning stops once the limit is reached
+                    if (result.movies.size() == limit) {
+                        full = true;
+                        break;
+                    }
+                }
+            }
+        }
+        if (orderBy != null) {
+            for (long row : top.sorted()) {
+                result.movies.add(catalog[CatalogIndex.genreOf(row)].get(CatalogIndex.indexOf(row)));
+            }
+        }
+        return result;
+    }
+
+    private boolean isEmpty() {
+        return limit == 0 || minYear > maxYear || minDuration > maxDuration || !(minScore <= maxScore);
+    }
+
+    // Whether a group of movies with the given statistics may hold a match; without statistics it may. A NaN score
+    // range, left by a NaN score in a file written before scores were checked for it, cannot rule a group out
+    private boolean mayMatch(MovieStats stats) {
+        return stats == null || (stats.getRows() > 0
+                && stats.getMaxYear() >= minYear && stats.getMinYear() <= maxYear
+                && stats.getMaxDuration() >= minDuration && stats.getMinDuration() <= maxDuration
+                && !(stats.getMaxScore() < minScore) && !(stats.getMinScore() > maxScore));
+    }
+
+    private boolean matches(MovieStore movies, int i) {
+        if (minYear != Integer.MIN_VALUE || maxYear != Integer.MAX_VALUE) {
+            int year = movies.year(i);
+            if (year < minYear || year > maxYear) {
+                return false;
+            }
+        }
+        if (minDuration != Integer.MIN_VALUE || maxDuration != Integer.MAX_VALUE) {
+            int duration = movies.duration(i);
+            if (duration < minDuration || duration > maxDuration) {
+                return false;
+            }
+        }
+        if (minScore != Double.NEGATIVE_INFINITY || maxScore != Double.POSITIVE_INFINITY) {
+            double score = movies.score(i);
+            return score >= minScore && score <= maxScore;
+        }
+        return true;
+    }
+
+    private double value(MovieStore movies, int i) {
+        double value;
+        switch (orderBy) {
+            case YEAR:
+                value = movies.year(i);
+                break;
+            case DURATION:
+                value = movies.duration(i);
+                break;
+            default:
+                value = movies.score(i);
+        }
+        // The heap keeps the highest values, so ascending order is kept by negating them
+        return ascending ? -value : value;
+    }
+
+    /**
+     * The movies found by a query, with the number of genre partitions, blocks and rows it went through.
+     */
+    public static class Result {
+        private final List<Movie> movies = new ArrayList<>();
+        private int partitionsScanned;
+        private int partitionsSkipped;
+        private long blocksSkipped;
+        private long rowsScanned;
+        private long rowsMatched;
+
+        public List<Movie> getMovies() {
+            return movies;
+        }
+
+        public int getPartitionsScanned() {
+            return partitionsScanned;
+        }
+
+        public int getPartitionsSkipped() {
+            return partitionsSkipped;
+        }
+
+        public long getBlocksSkipped() {
+            return blocksSkipped;
+        }
+
+        public long getRowsScanned() {
+            return rowsScanned;
+        }
+
+        public long getRowsMatched() {
+            return rowsMatched;
+        }
+    }
+
+    // Heap of the rows with the highest values seen, bounded by the limit. Among equal values the row that comes
+    // first in the catalog ranks higher, so the root is always the lowest ranked row kept.
+    private static class TopRows {
+        private final int capacity;
+        private double[] values = new double[16];
+        private long[] rows = new long[16];
+        private int size;
+
+        TopRows(int capacity) {
+            this.capacity = capacity;
+        }
+
+        void offer(double value, long row) {
+            if (capacity == 0) {
+                return;
+            }
+            if (size < capacity) {
+                if (size == values.length) {
+                    values = Arrays.copyOf(values, size * 2);
+                    rows = Arrays.copyOf(rows, size * 2);
+                }
+                values[size] = value;
+                rows[size] = row;
+                siftUp(size++);
+            } else if (ranksBelow(values[0], rows[0], value, row)) {
+                values[0] = value;
+                rows[0] = row;
+                siftDown(0);
+            }
+        }
+
+        // Empties the heap, returning its rows from the highest ranked down
+        long[] sorted() {
+            long[] sorted = new long[size];
+            while (size > 0) {
+                sorted[size - 1] = rows[0];
+                size--;
+                values[0] = values[size];
+                rows[0] = rows[size];
+                siftDown(0);
+            }
+            return sorted;
+        }
+
+        private static boolean ranksBelow(double value, long row, double otherValue, long otherRow) {
+            return value < otherValue || (value == otherValue && row > otherRow);
+        }
+
+        private void siftUp(int i) {
+            while (i > 0) {
+                int parent = (i - 1) / 2;
+                if (!ranksBelow(values[i], rows[i], values[parent], rows[parent])) {
+                    break;
+                }
+                swap(i, parent);
+                i = parent;
+            }
+        }
+
+        private void siftDown(int i) {
+            while (true) {
+                int lowest = i;
+                for (int child = 2 * i + 1; child <= 2 * i + 2 && child < size; child++) {
+                    if (ranksBelow(values[child], rows[child], values[lowest], rows[lowest])) {
+                        lowest = child;
+                    }
+                }
+                if (lowest == i) {
+                    return;
+                }
+                swap(i, lowest);
+                i = lowest;
+            }
+        }
+
+        private void swap(int i, int j) {
+            double value = values[i];
+            values[i] = values[j];
+            values[j] = value;
+            long row = rows[i];
+            rows[i] = rows[j];
+            rows[j] = row;
+        }
+    }
+
+    // Recursive descent parser of the query language, reading one token ahead.
+    private static class Parser {
+        private final String text;
+        private int position;
+        private String token;
+        private final MovieQuery query = new MovieQuery();
+
+        Parser(String text) {
+            this.text = text;
+            next();
+        }
+
+        MovieQuery parse() {
+            if (token != null && !isKeyword("order") && !isKeyword("limit")) {
+                condition();
+                while (isKeyword("and")) {
+                    next();
+                    condition();
+                }
+            }
+            if (isKeyword("order")) {
+                next();
+                expectKeyword("by");
+                Field field = field();
+                boolean ascending = false;
+                if (isKeyword("asc") || isKeyword("desc")) {
+                    ascending = isKeyword("asc");
+                    next();
+                }
+                query.orderBy(field, ascending);
+            }
+            if (isKeyword("limit")) {
+                next();
+                double limit = number();
+                if (limit != Math.floor(limit) || limit < 0 || limit > Integer.MAX_VALUE) {
+                    throw error("The limit must be a whole number");
+                }
+                query.limit((int) limit);
+            }
+            if (token != null) {
+                throw error("Unexpected " + token);
+            }
+            return query;
+        }
+
+        private void condition() {
+            if (isKeyword("genre")) {
+                next();
+                List<String> names = new ArrayList<>();
+                if (isKeyword("in")) {
+                    next();
+                    expect("(");
+                    names.add(name());
+                    while (token != null && token.equals(",")) {
+                        next();
+                        names.add(name());
+                    }
+                    expect(")");
+                } else {
+                    expect("=");
+                    names.add(name());
+                }
+                query.genres(names.toArray(new String[0]));
+                return;
+            }
+            Field field = field();
+            String operator = token;
+            if (!OPERATORS.contains(operator)) {
+                throw error("Expected a comparison after " + field.name().toLowerCase());
+            }
+            next();
+            double value = number();
+            if (field == Field.SCORE) {
+                double min = operator.equals(">") ? Math.nextUp(value) : operator.startsWith("<") ? Double.NEGATIVE_INFINITY : value;
+                double max = operator.equals("<") ? Math.nextDown(value) : operator.startsWith(">") ? Double.POSITIVE_INFINITY : value;
+                query.score(min, max);
+                return;
+            }
+            // Whole number fields compared with a fraction keep the whole numbers on the right side of it
+            double min = operator.equals(">") ? Math.floor(value) + 1 : operator.startsWith("<") ? Integer.MIN_VALUE : Math.ceil(value);
+            double max = operator.equals("<") ? Math.ceil(value) - 1 : operator.startsWith(">") ? Integer.MAX_VALUE : Math.floor(value);
+            int low = (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, min));
+            int high = (int) Math.max(Integer.MIN_VALUE, Math.min(Integer.MAX_VALUE, max));
+            if (field == Field.YEAR) {
+                query.year(low, high);
+            } else {
+                query.duration(low, high);
+            }
+        }
+
+        private Field field() {
+            if (token != null) {
+                for (Field field : Field.values()) {
+                    if (token.equalsIgnoreCase(field.name())) {
+                        next();
+                        return field;
+                    }
+                }
+            }
+            throw error("Expected year, duration or score but found " + (token == null ? "the end" : token));
+        }
+
+        private String name() {
+            if (token == null || !isWord(token)) {
+                throw error("Expected a genre name");
+            }
+            String name = token;
+            next();
+            return name;
+        }
+
+        private double number() {
+            if (token == null) {
+                throw error("Expected a number but found the end");
+            }
+            try {
+                double value = Double.parseDouble(token);
+                next();
+                return value;
+            } catch (NumberFormatException e) {
+                throw error("Expected a number but found " + token);
+            }
+        }
+
+        private boolean isKeyword(String keyword) {
+            return token != null && token.equalsIgnoreCase(keyword);
+        }
+
+        private void expectKeyword(String keyword) {
+            if (!isKeyword(keyword)) {
+                throw error("Expected " + keyword);
+            }
+            next();
+        }
+
+        private void expect(String symbol) {
+            if (token == null || !token.equals(symbol)) {
+                throw error("Expected " + symbol);
+            }
+            next();
+        }
+
+        private static boolean isWord(String token) {
+            return Character.isLetterOrDigit(token.charAt(0)) || token.charAt(0) == '.' || token.charAt(0) == '-';
+        }
+
+        // Reads the next word, number, parenthesis, comma or comparison operator
+        private void next() {
+            while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+                position++;
+            }
+            if (position == text.length()) {
+                token = null;
+                return;
+            }
+            int start = position;
+            char ch = text.charAt(position++);
+            if (ch == '<' || ch == '>') {
+                if (position < text.length() && text.charAt(position) == '=') {
+                    position++;
+                }
+            } else if (ch != '(' && ch != ')' && ch != ',' && ch != '=') {
+                while (position < text.length() && !Character.isWhitespace(text.charAt(position))
+                        && "(),=<>".indexOf(text.charAt(position)) < 0) {
+                    position++;
+                }
+            }
+            token = text.substring(start, position);
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException("Invalid query \"" + text + "\": " + message + ".");
+        }
+    }
+}
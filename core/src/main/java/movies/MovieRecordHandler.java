@@ -0,0 +1,22 @@
+// -----------------------------------------------------
+// The MovieRecordHandler interface receives the outcome of every line scanned from a movie records file.
+// MovieManager uses it to decouple reading and validating a file from what happens to the results, so the same
+// scanning code can write straight to the genre files or buffer the results of a worker task for a later merge.
+// -----------------------------------------------------
+
+package movies;
+
+public interface MovieRecordHandler {
+
+    /**
+     * Called for every line that was validated into a Movie object.
+     * @param movie The validated movie.
+     */
+    void accept(Movie movie);
+
+    /**
+     * Called for every line that failed validation.
+     * @param error The rejected record, with the file, line, error code, message and raw text of the line.
+     */
+    void reject(ErrorRecord error);
+}
@@ -0,0 +1,148 @@
+// -----------------------------------------------------
+// The MovieStats class summarizes a group of movies, such as a block or a whole genre file written by
+// MovieColumnWriter: the number of movies, the lowest and highest year, duration and score, and how many movies
+// have each rating of CodeTable.RATINGS. Stored next to the data, it lets a reader count movies or rule out a
+// block or a file for a range condition without reading the movies themselves.
+// -----------------------------------------------------
+
+package movies;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+public class MovieStats {
+
+    private int rows;
+    private int minYear = Integer.MAX_VALUE;
+    private int maxYear = Integer.MIN_VALUE;
+    private int minDuration = Integer.MAX_VALUE;
+    private int maxDuration = Integer.MIN_VALUE;
+    private double minScore = Double.POSITIVE_INFINITY;
+    private double maxScore = Double.NEGATIVE_INFINITY;
+    // One count per rating code, followed by the count of ratings that are not in the table
+    private final int[] ratingCounts = new int[CodeTable.RATINGS.size() + 1];
+
+    /**
+     * Adds a movie to the summary.
+     * @param movie The movie.
+     */
+    public void add(Movie movie) {
+        rows++;
+        minYear = Math.min(minYear, movie.getYear());
+        maxYear = Math.max(maxYear, movie.getYear());
+        minDuration = Math.min(minDuration, movie.getDuration());
+        maxDuration = Math.max(maxDuration, movie.getDuration());
+        minScore = Math.min(minScore, movie.getScore());
+        maxScore = Math.max(maxScore, movie.getScore());
+        int rating = movie.getRatingId();
+        ratingCounts[rating < 0 ? ratingCounts.length - 1 : rating]++;
+    }
+
+    /**
+     * Adds every movie of another summary to this one.
+     * @param other The other summary.
+     */
+    public void add(MovieStats other) {
+        rows += other.rows;
+        minYear = Math.min(minYear, other.minYear);
+        maxYear = Math.max(maxYear, other.maxYear);
+        minDuration = Math.min(minDuration, other.minDuration);
+        maxDuration = Math.max(maxDuration, other.maxDuration);
+        minScore = Math.min(minScore, other.minScore);
+        maxScore = Math.max(maxScore, other.maxScore);
+        for (int i = 0; i < ratingCounts.length; i++) {
+            ratingCounts[i] += other.ratingCounts[i];
+        }
+    }
+
+    public int getRows() {
+        return rows;
+    }
+
+    public int getMinYear() {
+        return minYear;
+    }
+
+    public int getMaxYear() {
+        return maxYear;
+    }
+
+    public int getMinDuration() {
+        return minDuration;
+    }
+
+    public int getMaxDuration() {
+        return maxDuration;
+    }
+
+    public double getMinScore() {
+        return minScore;
+    }
+
+    public double getMaxScore() {
+        return maxScore;
+    }
+
+    /**
+     * Returns the number of movies with a rating.
+     * @param ratingId The code of the rating in CodeTable.RATINGS, or -1 for ratings that are not in the table.
+     * @return The number of movies with the rating.
+     */
+    public int getRatingCount(int ratingId) {
+        return ratingCounts[ratingId < 0 ? ratingCounts.length - 1 : ratingId];
+    }
+
+    /**
+     * Returns the number of bytes a summary takes in a movie file.
+     * @return The encoded size.
+     */
+    static int encodedSize() {
+        return 4 + 4 * 4 + 2 * 8 + 4 + 4 * (CodeTable.RATINGS.size() + 1);
+    }
+
+    /**
+     * Writes the summary at the position of a buffer.
+     * @param buffer The buffer to write to.
+     */
+    void write(ByteBuffer buffer) {
+        buffer.putInt(rows).putInt(minYear).putInt(maxYear).putInt(minDuration).putInt(maxDuration);
+        buffer.putDouble(minScore).putDouble(maxScore);
+        buffer.putInt(ratingCounts.length);
+        for (int count : ratingCounts) {
+            buffer.putInt(count);
+        }
+    }
+
+    /**
+     * Reads a summary from the position of a buffer.
+     * @param buffer The buffer to read from.
+     * @return The summary.
+     */
+    static MovieStats read(ByteBuffer buffer) {
+        MovieStats stats = new MovieStats();
+        stats.rows = buffer.getInt();
+        stats.minYear = buffer.getInt();
+        stats.maxYear = buffer.getInt();
+        stats.minDuration = buffer.getInt();
+        stats.maxDuration = buffer.getInt();
+        stats.minScore = buffer.getDouble();
+        stats.maxScore = buffer.getDouble();
+        int ratings = buffer.getInt();
+        // A file written with a different rating table keeps the counts the two tables have in common
+        for (int i = 0; i < ratings; i++) {
+            int count = buffer.getInt();
+            if (i < stats.ratingCounts.length - 1 && i < ratings - 1) {
+                stats.ratingCounts[i] = count;
+            } else {
+                stats.ratingCounts[stats.ratingCounts.length - 1] += count;
+            }
+        }
+        return stats;
+    }
+
+    @Override
+    public String toString() {
+        return "MovieStats{rows=" + rows + ", year=" + minYear + ".." + maxYear + ", duration=" + minDuration + ".."
+                + maxDuration + ", score=" + minScore + ".." + maxScore + ", ratings=" + Arrays.toString(ratingCounts) + '}';
+    }
+}
@@ -0,0 +1,78 @@
+// -----------------------------------------------------
+// The MovieStore interface gives indexed access to the movies of one genre, which is all the part 3 navigation
+// needs. It lets a genre be kept in memory as a whole or decoded from its file only when a movie is asked for.
+// The numeric fields can also be read on their own, which lets a store that decodes movies on demand answer
+// queries over them without building a Movie for every row. A store may also keep statistics of its movies
+// (see MovieStats), as a whole and per block of consecutive movies, so a query can skip the blocks it rules out.
+// -----------------------------------------------------
+
+package movies;
+
+public interface MovieStore {
+
+    /**
+     * Returns the number of movies in the store.
+     * @return The number of movies.
+     */
+    int size();
+
+    /**
+     * Returns a movie of the store.
+     * @param index The index of the movie, from 0 to size() - 1.
+     * @return The movie at the given index.
+     * @throws java.io.UncheckedIOException If the movie cannot be read from its file.
+     */
+    Movie get(int index);
+
+    /**
+     * Returns the year of a movie of the store.
+     * @param index The index of the movie, from 0 to size() - 1.
+     * @return The year of the movie.
+     */
+    default int year(int index) {
+        return get(index).getYear();
+    }
+
+    /**
+     * Returns the duration of a movie of the store.
+     * @param index The index of the movie, from 0 to size() - 1.
+     * @return The duration of the movie in minutes.
+     */
+    default int duration(int index) {
+        return get(index).getDuration();
+    }
+
+    /**
+     * Returns the score of a movie of the store.
+     * @param index The index of the movie, from 0 to size() - 1.
+     * @return The score of the movie.
+     */
+    default double score(int index) {
+        return get(index).getScore();
+    }
+
+    /**
+     * Returns statistics of every movie of the store.
+     * @return The statistics, or null if the store does not keep them.
+     */
+    default MovieStats getStats() {
+        return null;
+    }
+
+    /**
+     * Returns the number of movies in each block of the store; only the last block may hold fewer.
+     * @return The number of movies per block.
+     */
+    default int getBlockSize() {
+        return Math.max(size(), 1);
+    }
+
+    /**
+     * Returns statistics of a block of the store.
+     * @param block The index of the block.
+     * @return The statistics, or null if the store does not keep them.
+     */
+    default MovieStats getBlockStats(int block) {
+        return getStats();
+    }
+}
@@ -0,0 +1,187 @@
+// -----------------------------------------------------
+// The NamePool class shares one String between every record naming the same director or actor. The same few
+// thousand names appear on millions of rows, and without the pool each row holds its own copy of them, so the heap
+// taken by a loaded catalog grows with its rows instead of its distinct names.
+// The pool is a fixed table of slots, so it never grows however many names it sees: a name is kept in the slot its
+// hash points to, and a different name landing on an occupied slot replaces it. A frequent name is thus almost
+// always found, while a rare one may be dropped and decoded again later, which only costs a copy.
+// Names can be looked up straight from the bytes of a line, so a name found in the pool is never decoded at all.
+// Slots are read and written without locks by any number of threads; two threads may both miss on a new name and
+// store their own copy, which is harmless as Strings are immutable. The pool counts its hits and misses and the
+// bytes the shared Strings saved, as estimated for compact Strings of a 64-bit JVM with compressed references.
+// -----------------------------------------------------
+
+package movies;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+
+public class NamePool {
+
+    public static final int DEFAULT_CAPACITY = 1 << 16;
+    private final AtomicReferenceArray<String> slots;
+    private final int mask;
+    private final int shift;
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder bytesSaved = new LongAdder();
+
+    /**
+     * Creates an empty pool.
+     * @param capacity The number of slots, rounded up to a power of two; the pool never holds more names.
+     */
+    public NamePool(int capacity) {
+        if (capacity < 1 || capacity > 1 << 30) {
+            throw new IllegalArgumentException("The name pool capacity must be between 1 and 2^30.");
+        }
+        int slotCount = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        slots = new AtomicReferenceArray<>(slotCount);
+        mask = slotCount - 1;
+        shift = Integer.numberOfLeadingZeros(mask);
+    }
+
+    /**
+     * Returns the pooled String equal to a name, pooling the name if none is.
+     * @param name The name, or null.
+     * @return A String equal to the name, or null for null.
+     */
+    public String intern(String name) {
+        if (name == null) {
+            return null;
+        }
+        int slot = slotOf(name.hashCode());
+        String pooled = slots.get(slot);
+        if (name.equals(pooled)) {
+            hit(pooled);
+            return pooled;
+        }
+        misses.increment();
+        slots.set(slot, name);
+        return name;
+    }
+
+    /**
+     * Returns the pooled String equal to a range of a line, creating and pooling it if none is.
+     * @param text The line.
+     * @param start The index of the first character of the name.
+     * @param end The index after the last character of the name.
+     * @return A String equal to the range.
+     */
+    public String intern(String text, int start, int end) {
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            hash = 31 * hash + text.charAt(i);
+        }
+        int slot = slotOf(hash);
+        String pooled = slots.get(slot);
+        if (pooled != null && pooled.length() == end - start && text.regionMatches(start, pooled, 0, end - start)) {
+            hit(pooled);
+            return pooled;
+        }
+        misses.increment();
+        String name = text.substring(start, end);
+        slots.set(slot, name);
+        return name;
+    }
+
+    /**
+     * Returns the pooled String equal to a range of UTF-8 bytes, creating and pooling it if none is.
+     * ASCII names are hashed and compared straight from the bytes, so they are only decoded when not found.
+     * @param bytes The array holding the name.
+     * @param start The index of the first byte of the name.
+     * @param end The index after the last byte of the name.
+     * @return A String equal to the decoded range.
+     */
+    public String intern(byte[] bytes, int start, int end) {
+        // For ASCII bytes this is the hash code of the decoded String
+        int hash = 0;
+        for (int i = start; i < end; i++) {
+            if (bytes[i] < 0) {
+                return intern(new String(bytes, start, end - start, StandardCharsets.UTF_8));
+            }
+            hash = 31 * hash + bytes[i];
+        }
+        int slot = slotOf(hash);
+        String pooled = slots.get(slot);
+        if (pooled != null && matches(pooled, bytes, start, end)) {
+            hit(pooled);
+            return pooled;
+        }
+        misses.increment();
+        String name = new String(bytes, start, end - start, StandardCharsets.ISO_8859_1);
+        slots.set(slot, name);
+        return name;
+    }
+
+    private static boolean matches(String pooled, byte[] bytes, int start, int end) {
+        if (pooled.length() != end - start) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            if (pooled.charAt(i - start) != bytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // Takes the slot from the high bits of a multiplicative hash, as names often differ only in their last letters
+    private int slotOf(int hash) {
+        return hash * 0x9E3779B9 >>> shift & mask;
+    }
+
+    private void hit(String pooled) {
+        hits.increment();
+        // A String object and its byte array, each with its header and padding
+        bytesSaved.add(24L + ((16L + pooled.length() + 7) & ~7L));
+    }
+
+    /**
+     * Returns the number of names found in the pool.
+     * @return The number of hits.
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Returns the number of names not found in the pool, which were pooled.
+     * @return The number of misses.
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Returns the share of names found in the pool.
+     * @return The hit rate, from 0 to 1, or 0 if no name was looked up.
+     */
+    public double getHitRate() {
+        long hits = getHits();
+        long lookups = hits + getMisses();
+        return lookups == 0 ? 0 : (double) hits / lookups;
+    }
+
+    /**
+     * Returns the estimated number of bytes that sharing the pooled names saved, one copy for every hit.
+     * @return The estimated bytes saved.
+     */
+    public long getBytesSaved() {
+        return bytesSaved.sum();
+    }
+
+    /**
+     * Returns the number of slots of the pool, which bounds the number of names it holds.
+     * @return The capacity.
+     */
+    public int getCapacity() {
+        return slots.length();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%d hits, %d misses (%.1f%% hit rate), about %d bytes saved", getHits(), getMisses(),
+                100 * getHitRate(), getBytesSaved());
+    }
+}
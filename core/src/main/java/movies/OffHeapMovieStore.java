@@ -0,0 +1,251 @@
+// -----------------------------------------------------
+// The OffHeapMovieStore class holds the movies of a genre outside of the Java heap, in direct ByteBuffers, so a
+// catalog of tens of millions of movies adds almost nothing for the garbage collector to trace or copy: the heap only
+// holds the buffers themselves, whatever the number of movies.
+// Every movie is a fixed-width record in a page of records: its year, duration and score, then references to its
+// title, genre, rating, director and actors in a string arena. The arena holds every string once as a two-byte length
+// followed by its UTF-8 bytes; titles are appended as they come, and every other string is shared by the records
+// spelling it the same way. A reference packs the page of the arena and the offset of the string in that page.
+// Queries read the year, duration and score of a record straight from its page, and a Movie is only decoded when
+// get asks for one, so the index of a row is the cursor the navigation and query code read the store through.
+// The last page of records and of the arena doubles as the store is built, up to 64K records and 16 MB, so a small
+// genre does not reserve whole pages. Pages are freed by the garbage collector once the store is unreachable.
+// A store is filled once when it is built and is read-only afterwards, so it can be read by many threads.
+// -----------------------------------------------------
+
+package movies;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+public class OffHeapMovieStore implements MovieStore {
+
+    // Offsets of the fields within a record
+    private static final int YEAR = 0;
+    private static final int DURATION = 4;
+    private static final int SCORE = 6;
+    private static final int TITLE = 14;
+    private static final int GENRE = 18;
+    private static final int RATING = 22;
+    private static final int DIRECTOR = 26;
+    private static final int ACTOR1 = 30;
+    private static final int ACTOR2 = 34;
+    private static final int ACTOR3 = 38;
+    static final int RECORD_SIZE = 42;
+    private static final int RECORD_PAGE_SHIFT = 16;
+    private static final int RECORDS_PER_PAGE = 1 << RECORD_PAGE_SHIFT;
+    private static final int ARENA_PAGE_SHIFT = 24;
+    private static final int ARENA_PAGE_SIZE = 1 << ARENA_PAGE_SHIFT;
+    private static final int FIRST_ARENA_PAGE_SIZE = 1 << 16;
+    private static final int MAX_STRING_LENGTH = 0xFFFF;
+    private static final int NULL_REFERENCE = -1;
+
+    private final List<ByteBuffer> recordPages = new ArrayList<>();
+    private final List<ByteBuffer> arenaPages = new ArrayList<>();
+    private final MovieStats stats = new MovieStats();
+    // References of the strings shared between records, only kept while the store is built
+    private Map<String, Integer> shared = new HashMap<>();
+    private int size;
+
+    private OffHeapMovieStore() {
+    }
+
+    /**
+     * Builds a store holding a copy of an array of movies.
+     * @param movies The movies of the store.
+     * @return The store.
+     */
+    public static OffHeapMovieStore of(Movie[] movies) {
+        OffHeapMovieStore store = new OffHeapMovieStore();
+        for (Movie movie : movies) {
+            store.add(movie);
+        }
+        store.shared = null;
+        return store;
+    }
+
+    /**
+     * Loads a genre file written by MovieColumnWriter, decoding its movies one block at a time so that no array
+     * of movies is built on the way.
+     * @param fileName The name of the genre file.
+     * @return The store.
+     * @throws IOException If the file cannot be read or is not a complete movie file.
+     */
+    public static OffHeapMovieStore load(String fileName) throws IOException {
+        try (MovieColumnFile file = MovieColumnFile.open(fileName)) {
+            OffHeapMovieStore store = new OffHeapMovieStore();
+            for (int b = 0; b < file.getBlockCount(); b++) {
+                ByteBuffer block = file.mapBlock(b);
+                int rows = file.getBlockRows(b);
+                for (int row = 0; row < rows; row++) {
+                    store.add(file.decode(block, rows, row));
+                }
+            }
+            store.shared = null;
+            return store;
+        }
+    }
+
+    private void add(Movie movie) {
+        if (movie.getDuration() < Short.MIN_VALUE || movie.getDuration() > Short.MAX_VALUE) {
+            throw new IllegalArgumentException("Duration out of range: " + movie.getDuration());
+        }
+        int record = record(size);
+        if (record == 0) {
+            recordPages.add(ByteBuffer.allocateDirect(RECORD_SIZE * 64));
+        }
+        ByteBuffer page = lastPage(recordPages, record + RECORD_SIZE, RECORDS_PER_PAGE * RECORD_SIZE);
+        page.putInt(record + YEAR, movie.getYear());
+        page.putShort(record + DURATION, (short) movie.getDuration());
+        page.putDouble(record + SCORE, movie.getScore());
+        page.putInt(record + TITLE, append(movie.getTitle()));
+        page.putInt(record + GENRE, appendShared(movie.getGenres()));
+        page.putInt(record + RATING, appendShared(movie.getRating()));
+        page.putInt(record + DIRECTOR, appendShared(movie.getDirector()));
+        page.putInt(record + ACTOR1, appendShared(movie.getActor1()));
+        page.putInt(record + ACTOR2, appendShared(movie.getActor2()));
+        page.putInt(record + ACTOR3, appendShared(movie.getActor3()));
+        stats.add(movie);
+        size++;
+    }
+
+    private int appendShared(String text) {
+        if (text == null) {
+            return NULL_REFERENCE;
+        }
+        Integer reference = shared.get(text);
+        if (reference == null) {
+            reference = append(text);
+            shared.put(text, reference);
+        }
+        return reference;
+    }
+
+    /**
+     * Appends a string to the arena, starting a new page when the current one cannot hold it.
+     * @return The reference of the string.
+     */
+    private int append(String text) {
+        if (text == null) {
+            return NULL_REFERENCE;
+        }
+        byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+        if (bytes.length > MAX_STRING_LENGTH) {
+            throw new IllegalArgumentException("String too long for the off-heap store: " + bytes.length + " bytes");
+        }
+        ByteBuffer page = arenaPages.isEmpty() ? null : arenaPages.get(arenaPages.size() - 1);
+        if (page == null || page.position() + 2 + bytes.length > ARENA_PAGE_SIZE) {
+            // References are positive ints, so the arena holds at most 128 pages of 16 MB
+            if (arenaPages.size() == 1 << (31 - ARENA_PAGE_SHIFT)) {
+                throw new IllegalStateException("The string arena of the off-heap store is full.");
+            }
+            arenaPages.add(ByteBuffer.allocateDirect(FIRST_ARENA_PAGE_SIZE));
+        }
+        page = lastPage(arenaPages, arenaPages.get(arenaPages.size() - 1).position() + 2 + bytes.length,
+                ARENA_PAGE_SIZE);
+        int reference = (arenaPages.size() - 1) << ARENA_PAGE_SHIFT | page.position();
+        page.putShort((short) bytes.length);
+        page.put(bytes);
+        return reference;
+    }
+
+    /**
+     * Returns the last page of a list, first doubling its capacity, up to the largest page size, until it holds the
+     * given number of bytes. Offsets within the page do not change, so references to it stay valid.
+     */
+    private static ByteBuffer lastPage(List<ByteBuffer> pages, int needed, int maxSize) {
+        ByteBuffer page = pages.get(pages.size() - 1);
+        if (needed <= page.capacity()) {
+            return page;
+        }
+        int capacity = page.capacity();
+        while (capacity < needed) {
+            capacity = Math.min(capacity * 2, maxSize);
+        }
+        ByteBuffer grown = ByteBuffer.allocateDirect(capacity);
+        ByteBuffer used = page.duplicate();
+        used.clear();
+        grown.put(used);
+        grown.position(page.position());
+        pages.set(pages.size() - 1, grown);
+        return grown;
+    }
+
+    private String string(int reference) {
+        if (reference == NULL_REFERENCE) {
+            return null;
+        }
+        ByteBuffer page = arenaPages.get(reference >>> ARENA_PAGE_SHIFT);
+        int offset = reference & (ARENA_PAGE_SIZE - 1);
+        byte[] bytes = new byte[page.getShort(offset) & 0xFFFF];
+        page.get(offset + 2, bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private ByteBuffer page(int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Movie index " + index + " out of bounds for " + size + " movies");
+        }
+        return recordPages.get(index >>> RECORD_PAGE_SHIFT);
+    }
+
+    private static int record(int index) {
+        return (index & (RECORDS_PER_PAGE - 1)) * RECORD_SIZE;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public Movie get(int index) {
+        ByteBuffer page = page(index);
+        int record = record(index);
+        return new Movie(page.getInt(record + YEAR), string(page.getInt(record + TITLE)),
+                page.getShort(record + DURATION), string(page.getInt(record + GENRE)),
+                string(page.getInt(record + RATING)), page.getDouble(record + SCORE),
+                string(page.getInt(record + DIRECTOR)), string(page.getInt(record + ACTOR1)),
+                string(page.getInt(record + ACTOR2)), string(page.getInt(record + ACTOR3)));
+    }
+
+    @Override
+    public int year(int index) {
+        return page(index).getInt(record(index) + YEAR);
+    }
+
+    @Override
+    public int duration(int index) {
+        return page(index).getShort(record(index) + DURATION);
+    }
+
+    @Override
+    public double score(int index) {
+        return page(index).getDouble(record(index) + SCORE);
+    }
+
+    @Override
+    public MovieStats getStats() {
+        return stats;
+    }
+
+    /**
+     * Returns the memory allocated outside of the heap for the records and the string arena.
+     * @return The number of bytes of the pages of the store.
+     */
+    public long offHeapBytes() {
+        long bytes = 0;
+        for (ByteBuffer page : recordPages) {
+            bytes += page.capacity();
+        }
+        for (ByteBuffer page : arenaPages) {
+            bytes += page.capacity();
+        }
+        return bytes;
+    }
+}
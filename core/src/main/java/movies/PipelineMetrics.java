@@ -0,0 +1,289 @@
+// -----------------------------------------------------
+// The PipelineMetrics class collects counters and latency histograms while the movie pipeline runs, and writes them
+// to a file at the end of the run, as JSON or in the Prometheus text format.
+// Counters are LongAdders, so worker threads can update them without contending on a shared value. A histogram
+// counts durations in buckets whose bounds are powers of two nanoseconds, which needs a single leading-zero count per
+// recorded value instead of a search. Metrics are looked up by name and labels, and are written sorted by name and
+// labels so that two runs produce files that can be compared line by line. Hot loops are expected to count locally
+// and add their totals once, rather than look a metric up for every row.
+// -----------------------------------------------------
+
+package movies;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.Comparator;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.atomic.LongAdder;
+
+public class PipelineMetrics {
+
+    /**
+     * The formats the metrics can be written in.
+     */
+    public enum Format {
+        JSON, PROMETHEUS
+    }
+
+    /**
+     * A distribution of durations, counted in buckets bounded by powers of two nanoseconds.
+     */
+    public static class Histogram {
+        // Bucket i counts the durations of more than 2^(i-1) and at most 2^i nanoseconds
+        private final LongAdder[] buckets = new LongAdder[64];
+        private final LongAdder count = new LongAdder();
+        private final LongAdder sum = new LongAdder();
+
+        private Histogram() {
+            for (int i = 0; i < buckets.length; i++) {
+                buckets[i] = new LongAdder();
+            }
+        }
+
+        /**
+         * Records a duration.
+         * @param nanos The duration in nanoseconds; negative durations are counted as 0.
+         */
+        public void record(long nanos) {
+            nanos = Math.max(nanos, 0);
+            int bucket = nanos <= 1 ? 0 : 64 - Long.numberOfLeadingZeros(nanos - 1);
+            buckets[Math.min(bucket, buckets.length - 1)].increment();
+            count.increment();
+            sum.add(nanos);
+        }
+
+        /**
+         * Records the time elapsed since a start time.
+         * @param startNanos The start time, as returned by System.nanoTime.
+         */
+        public void recordSince(long startNanos) {
+            record(System.nanoTime() - startNanos);
+        }
+
+        public long getCount() {
+            return count.sum();
+        }
+
+        public long getSumNanos() {
+            return sum.sum();
+        }
+    }
+
+    private static final Comparator<String> KEY_ORDER =
+            Comparator.comparing(PipelineMetrics::nameOf).thenComparing(Comparator.naturalOrder());
+    private final Map<String, String> help = new ConcurrentHashMap<>();
+    // Keys are sorted by metric name first, so the series of a metric are written together
+    private final Map<String, LongAdder> counters = new ConcurrentSkipListMap<>(KEY_ORDER);
+    private final Map<String, Histogram> histograms = new ConcurrentSkipListMap<>(KEY_ORDER);
+
+    /**
+     * Returns a counter, creating it the first time it is asked for.
+     * @param name The name of the counter.
+     * @param description What the counter counts.
+     * @param labels Pairs of label names and values, such as "genre", "drama".
+     * @return The counter.
+     */
+    public LongAdder counter(String name, String description, String... labels) {
+        help.putIfAbsent(name, description);
+        return counters.computeIfAbsent(key(name, labels), k -> new LongAdder());
+    }
+
+    /**
+     * Returns a histogram of durations, creating it the first time it is asked for.
+     * @param name The name of the histogram; durations are written in seconds.
+     * @param description What the histogram measures.
+     * @param labels Pairs of label names and values, such as "stage", "part1".
+     * @return The histogram.
+     */
+    public Histogram histogram(String name, String description, String... labels) {
+        help.putIfAbsent(name, description);
+        return histograms.computeIfAbsent(key(name, labels), k -> new Histogram());
+    }
+
+    /**
+     * Returns the current value of a counter.
+     * @param name The name of the counter.
+     * @param labels Pairs of label names and values.
+     * @return The value, or 0 if the counter was never created.
+     */
+    public long get(String name, String... labels) {
+        LongAdder counter = counters.get(key(name, labels));
+        return counter == null ? 0 : counter.sum();
+    }
+
+    // The key of a metric is written as is in the Prometheus format, so label values are escaped here
+    private static String key(String name, String... labels) {
+        if (labels.length == 0) {
+            return name;
+        }
+        if (labels.length % 2 != 0) {
+            throw new IllegalArgumentException("Labels must be given as name and value pairs.");
+        }
+        StringBuilder key = new StringBuilder(name).append('{');
+        for (int i = 0; i < labels.length; i += 2) {
+            if (i > 0) {
+                key.append(',');
+            }
+            key.append(labels[i]).append("=\"");
+            String value = labels[i + 1];
+            for (int j = 0; j < value.length(); j++) {
+                char ch = value.charAt(j);
+                if (ch == '"' || ch == '\\') {
+                    key.append('\\').append(ch);
+                } else if (ch == '\n') {
+                    key.append("\\n");
+                } else {
+                    key.append(ch);
+                }
+            }
+            key.append('"');
+        }
+        return key.append('}').toString();
+    }
+
+    /**
+     * Writes every metric to a file, replacing it.
+     * @param fileName The name of the file.
+     * @param format The format of the file.
+     * @throws IOException If the file cannot be written.
+     */
+    public void write(String fileName, Format format) throws IOException {
+        try (Writer out = new BufferedWriter(new OutputStreamWriter(new FileOutputStream(fileName),
+                StandardCharsets.UTF_8))) {
+            if (format == Format.JSON) {
+                writeJson(out);
+            } else {
+                writePrometheus(out);
+            }
+        }
+    }
+
+    /**
+     * Writes every metric in the Prometheus text exposition format.
+     * @param out The writer to write to.
+     * @throws IOException If the metrics cannot be written.
+     */
+    public void writePrometheus(Writer out) throws IOException {
+        String described = null;
+        for (Map.Entry<String, LongAdder> entry : counters.entrySet()) {
+            String name = nameOf(entry.getKey());
+            if (!name.equals(described)) {
+                writeDescription(out, name, "counter");
+                described = name;
+            }
+            out.write(entry.getKey() + " " + entry.getValue().sum() + "\n");
+        }
+        for (Map.Entry<String, Histogram> entry : histograms.entrySet()) {
+            String name = nameOf(entry.getKey());
+            if (!name.equals(described)) {
+                writeDescription(out, name, "histogram");
+                described = name;
+            }
+            String labels = labelsOf(entry.getKey());
+            Histogram histogram = entry.getValue();
+            long cumulative = 0;
+            for (int i = 0; i <= lastBucket(histogram); i++) {
+                cumulative += histogram.buckets[i].sum();
+                out.write(name + "_bucket{" + labels + (labels.isEmpty() ? "" : ",") + "le=\""
+                        + seconds(Math.pow(2, i)) + "\"} " + cumulative + "\n");
+            }
+            out.write(name + "_bucket{" + labels + (labels.isEmpty() ? "" : ",") + "le=\"+Inf\"} "
+                    + histogram.getCount() + "\n");
+            String suffix = labels.isEmpty() ? "" : "{" + labels + "}";
+            out.write(name + "_sum" + suffix + " " + seconds(histogram.getSumNanos()) + "\n");
+            out.write(name + "_count" + suffix + " " + histogram.getCount() + "\n");
+        }
+    }
+
+    private void writeDescription(Writer out, String name, String type) throws IOException {
+        out.write("# HELP " + name + " " + help.getOrDefault(name, name) + "\n");
+        out.write("# TYPE " + name + " " + type + "\n");
+    }
+
+    /**
+     * Writes every metric as a JSON object holding a list of counters and a list of histograms.
+     * @param out The writer to write to.
+     * @throws IOException If the metrics cannot be written.
+     */
+    public void writeJson(Writer out) throws IOException {
+        StringBuilder json = new StringBuilder("{\n  \"counters\": [");
+        String separator = "\n";
+        for (Map.Entry<String, LongAdder> entry : counters.entrySet()) {
+            json.append(separator).append("    {\"name\": ");
+            appendNameAndLabels(json, entry.getKey());
+            json.append(", \"value\": ").append(entry.getValue().sum()).append('}');
+            separator = ",\n";
+        }
+        json.append("\n  ],\n  \"histograms\": [");
+        separator = "\n";
+        for (Map.Entry<String, Histogram> entry : histograms.entrySet()) {
+            Histogram histogram = entry.getValue();
+            json.append(separator).append("    {\"name\": ");
+            appendNameAndLabels(json, entry.getKey());
+            json.append(", \"count\": ").append(histogram.getCount());
+            json.append(", \"sumSeconds\": ").append(seconds(histogram.getSumNanos()));
+            json.append(", \"buckets\": [");
+            for (int i = 0; i <= lastBucket(histogram); i++) {
+                json.append(i > 0 ? ", " : "").append("{\"le\": ").append(seconds(Math.pow(2, i)));
+                json.append(", \"count\": ").append(histogram.buckets[i].sum()).append('}');
+            }
+            json.append("]}");
+            separator = ",\n";
+        }
+        out.write(json.append("\n  ]\n}\n").toString());
+    }
+
+    private static void appendNameAndLabels(StringBuilder json, String key) {
+        ErrorRecord.appendJsonString(json, nameOf(key));
+        json.append(", \"labels\": {");
+        String labels = labelsOf(key);
+        int i = 0;
+        boolean first = true;
+        while (i < labels.length()) {
+            int equals = labels.indexOf('=', i);
+            // Values are quoted and escaped, so the value ends at the first quote that is not escaped
+            StringBuilder value = new StringBuilder();
+            int j = equals + 2;
+            for (; labels.charAt(j) != '"'; j++) {
+                char ch = labels.charAt(j);
+                if (ch == '\\') {
+                    ch = labels.charAt(++j) == 'n' ? '\n' : labels.charAt(j);
+                }
+                value.append(ch);
+            }
+            json.append(first ? "" : ", ");
+            ErrorRecord.appendJsonString(json, labels.substring(i, equals));
+            json.append(": ");
+            ErrorRecord.appendJsonString(json, value.toString());
+            first = false;
+            i = j + 2;
+        }
+        json.append('}');
+    }
+
+    private static String nameOf(String key) {
+        int brace = key.indexOf('{');
+        return brace < 0 ? key : key.substring(0, brace);
+    }
+
+    private static String labelsOf(String key) {
+        int brace = key.indexOf('{');
+        return brace < 0 ? "" : key.substring(brace + 1, key.length() - 1);
+    }
+
+    private static int lastBucket(Histogram histogram) {
+        int last = 0;
+        for (int i = 0; i < histogram.buckets.length; i++) {
+            if (histogram.buckets[i].sum() > 0) {
+                last = i;
+            }
+        }
+        return last;
+    }
+
+    private static String seconds(double nanos) {
+        return Double.toString(nanos / 1e9);
+    }
+}
@@ -0,0 +1,128 @@
+// -----------------------------------------------------
+// The CsvTokenizerTest class checks that lines given as Strings and as UTF-8 bytes are split the same way, by the
+// rules of the movie records files.
+// -----------------------------------------------------
+
+package movies;
+
+import org.junit.jupiter.api.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CsvTokenizerTest {
+
+    private final CsvTokenizer tokenizer = new CsvTokenizer();
+
+    /**
+     * Tokenizes a line as a String and as bytes in the middle of a larger array, and checks that both give the
+     * same fields.
+     * @return The number of fields terminated by a comma.
+     */
+    private int tokenizeBoth(String line, String... expected) {
+        int commas = tokenizer.tokenize(line);
+        for (int i = 0; i < CsvTokenizer.EXPECTED_FIELD_COUNT; i++) {
+            assertEquals(i < expected.length ? expected[i] : null, tokenizer.field(i), "field " + i + " of String");
+        }
+        byte[] bytes = ("xx" + line + "\nyy").getBytes(StandardCharsets.UTF_8);
+        int length = line.getBytes(StandardCharsets.UTF_8).length;
+        assertEquals(commas, tokenizer.tokenize(bytes, 2, 2 + length));
+        for (int i = 0; i < CsvTokenizer.EXPECTED_FIELD_COUNT; i++) {
+            assertEquals(i < expected.length ? expected[i] : null, tokenizer.field(i), "field " + i + " of bytes");
+        }
+        return commas;
+    }
+
+    @Test
+    void splitsOnCommas() {
+        assertEquals(9, tokenizeBoth("2001,Title,120,Drama,PG,7.5,Director,A1,A2,A3",
+                "2001", "Title", "120", "Drama", "PG", "7.5", "Director", "A1", "A2", "A3"));
+    }
+
+    @Test
+    void commasInsideQuotesDoNotSplit() {
+        assertEquals(2, tokenizeBoth("1999,\"Crouching Tiger, Hidden Dragon\",120",
+                "1999", "Crouching Tiger, Hidden Dragon", "120"));
+    }
+
+    @Test
+    void fieldsAreTrimmed() {
+        tokenizeBoth(" 2001 , Title ,\" Quoted \"", "2001", "Title", "Quoted");
+    }
+
+    @Test
+    void textAfterTheTenthCommaIsIgnored() {
+        assertEquals(10, tokenizeBoth("1,2,3,4,5,6,7,8,9,10,11,12", "1", "2", "3", "4", "5", "6", "7", "8", "9", "10"));
+    }
+
+    @Test
+    void lastFieldEndingInsideQuotesIsMissing() {
+        assertEquals(1, tokenizeBoth("2001,\"Unclosed, title", "2001"));
+    }
+
+    @Test
+    void nonAsciiNamesAreDecoded() {
+        tokenizeBoth("2001,Amélie,122,Pedro Almodóvar", "2001", "Amélie", "122", "Pedro Almodóvar");
+    }
+
+    @Test
+    void parsesNumbersLikeTheJdk() {
+        String[] numbers = {"0", "7", "7.5", "-3.25", "8.123456789", "10.0", "1e3", " 6.1 "};
+        for (String number : numbers) {
+            byte[] bytes = number.getBytes(StandardCharsets.UTF_8);
+            tokenizer.tokenize(bytes, 0, bytes.length);
+            assertEquals(Double.parseDouble(number.trim()), tokenizer.doubleField(0), number);
+            tokenizer.tokenize(number);
+            assertEquals(Double.parseDouble(number.trim()), tokenizer.doubleField(0), number);
+        }
+        tokenizer.tokenize("-42,\"17\"");
+        assertEquals(-42, tokenizer.intField(0));
+        assertEquals(17, tokenizer.intField(1));
+    }
+
+    @Test
+    void rejectsMalformedNumbers() {
+        tokenizer.tokenize("12a,,x");
+        assertThrows(NumberFormatException.class, () -> tokenizer.intField(0));
+        assertThrows(NumberFormatException.class, () -> tokenizer.intField(1));
+        assertThrows(NumberFormatException.class, () -> tokenizer.doubleField(2));
+        assertThrows(NumberFormatException.class, () -> tokenizer.intField(5));
+    }
+
+    @Test
+    void tellsEmptyFields() {
+        tokenizer.tokenize("a,,\"\", ");
+        assertFalse(tokenizer.isEmptyField(0));
+        assertTrue(tokenizer.isEmptyField(1));
+        assertTrue(tokenizer.isEmptyField(2));
+        assertTrue(tokenizer.isEmptyField(4));
+    }
+
+    @Test
+    void looksUpCodesFromStringsAndBytes() {
+        String line = "Drama,\"PG\",Unknown";
+        byte[] bytes = line.getBytes(StandardCharsets.UTF_8);
+        for (int pass = 0; pass < 2; pass++) {
+            if (pass == 0) {
+                tokenizer.tokenize(line);
+            } else {
+                tokenizer.tokenize(bytes, 0, bytes.length);
+            }
+            assertEquals(CodeTable.GENRES.lookup("Drama"), tokenizer.codeField(0, CodeTable.GENRES));
+            assertEquals(CodeTable.RATINGS.lookup("PG"), tokenizer.codeField(1, CodeTable.RATINGS));
+            assertEquals(-1, tokenizer.codeField(2, CodeTable.GENRES));
+            assertEquals(-1, tokenizer.codeField(3, CodeTable.GENRES));
+        }
+    }
+
+    @Test
+    void fieldsDoNotLeakIntoTheNextLine() {
+        tokenizer.tokenize("a,b,c");
+        assertEquals("c", tokenizer.field(2));
+        tokenizer.tokenize("d");
+        assertEquals("d", tokenizer.field(0));
+        assertNull(tokenizer.field(1));
+        assertNull(tokenizer.field(2));
+    }
+}
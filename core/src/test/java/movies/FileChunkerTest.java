@@ -0,0 +1,100 @@
+// -----------------------------------------------------
+// The FileChunkerTest class checks that the chunks of a file start at line starts and cover the whole file.
+// -----------------------------------------------------
+
+package movies;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FileChunkerTest {
+
+    @TempDir
+    Path directory;
+
+    private String write(String content) throws IOException {
+        Path file = directory.resolve("movies.csv");
+        Files.write(file, content.getBytes(StandardCharsets.UTF_8));
+        return file.toString();
+    }
+
+    /**
+     * Checks that the chunks follow each other from the start to the end of the file.
+     */
+    private static void assertCovers(List<FileChunker.Chunk> chunks, long size) {
+        assertEquals(0, chunks.get(0).getStart());
+        assertTrue(chunks.get(0).isFirst());
+        for (int i = 1; i < chunks.size(); i++) {
+            assertEquals(chunks.get(i - 1).getEnd(), chunks.get(i).getStart());
+            assertFalse(chunks.get(i).isFirst());
+        }
+        assertEquals(size, chunks.get(chunks.size() - 1).getEnd());
+    }
+
+    @Test
+    void smallFileIsOneChunk() throws IOException {
+        String file = write("a,b\nc,d\n");
+        List<FileChunker.Chunk> chunks = FileChunker.split(file, FileChunker.DEFAULT_CHUNK_SIZE);
+        assertEquals(1, chunks.size());
+        assertCovers(chunks, 8);
+    }
+
+    @Test
+    void emptyFileIsOneEmptyChunk() throws IOException {
+        List<FileChunker.Chunk> chunks = FileChunker.split(write(""), 4);
+        assertEquals(1, chunks.size());
+        assertCovers(chunks, 0);
+    }
+
+    @Test
+    void chunksStartAtLineStarts() throws IOException {
+        String content = "first line\nsecond\nthird line here\n4\nlast";
+        String file = write(content);
+        for (int chunkSize = 1; chunkSize <= content.length(); chunkSize++) {
+            List<FileChunker.Chunk> chunks = FileChunker.split(file, chunkSize);
+            assertCovers(chunks, content.length());
+            for (FileChunker.Chunk chunk : chunks) {
+                assertTrue(chunk.getStart() < chunk.getEnd(), "empty chunk for size " + chunkSize);
+                if (!chunk.isFirst()) {
+                    assertEquals('\n', content.charAt((int) chunk.getStart() - 1), "cut inside a line");
+                }
+            }
+        }
+    }
+
+    @Test
+    void carriageReturnLineFeedIsNeverSplit() throws IOException {
+        String content = "ab\r\ncd\r\nef\rgh\r\n";
+        String file = write(content);
+        for (int chunkSize = 1; chunkSize <= content.length(); chunkSize++) {
+            List<FileChunker.Chunk> chunks = FileChunker.split(file, chunkSize);
+            assertCovers(chunks, content.length());
+            for (FileChunker.Chunk chunk : chunks) {
+                if (!chunk.isFirst()) {
+                    char before = content.charAt((int) chunk.getStart() - 1);
+                    assertTrue(before == '\n' || before == '\r', "cut inside a line");
+                    assertNotEquals('\n', content.charAt((int) chunk.getStart()), "cut inside \"\\r\\n\"");
+                }
+            }
+        }
+    }
+
+    @Test
+    void chunkSizeMustBePositive() throws IOException {
+        String file = write("a\n");
+        assertThrows(IllegalArgumentException.class, () -> FileChunker.split(file, 0));
+    }
+
+    @Test
+    void missingFileIsAnIOException() {
+        assertThrows(IOException.class, () -> FileChunker.split(directory.resolve("missing.csv").toString(), 4));
+    }
+}
@@ -0,0 +1,100 @@
+// -----------------------------------------------------
+// The IngestStateTest class checks that an ingestion state is saved and loaded back unchanged, including states
+// saved before manifests were kept, and that malformed state files are refused.
+// -----------------------------------------------------
+
+package movies;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class IngestStateTest {
+
+    @TempDir
+    Path directory;
+
+    @Test
+    void missingFileIsAnEmptyState() throws IOException {
+        IngestState state = IngestState.load(directory.resolve("state.txt").toFile());
+        assertTrue(state.isEmpty());
+        assertEquals(List.of(), state.getManifest());
+    }
+
+    @Test
+    void savedStateIsLoadedBack() throws IOException {
+        IngestState state = new IngestState();
+        state.put(new IngestState.Entry("data/2001.csv", 120, 1000, "ab12", new long[]{3, 0, 7}));
+        state.put(new IngestState.Entry("data/1999.csv", 80, 2000, "cd34", new long[]{1}));
+        List<String> manifest = Arrays.asList("data/2001.csv", "data/1999.csv", "data/2001.csv");
+        state.setManifest(manifest);
+        File stateFile = directory.resolve("state.txt").toFile();
+        state.save(stateFile);
+        assertFalse(new File(stateFile.getPath() + ".tmp").exists());
+
+        IngestState loaded = IngestState.load(stateFile);
+        assertEquals(Arrays.asList("data/2001.csv", "data/1999.csv"), loaded.getInputFiles());
+        assertEquals(manifest, loaded.getManifest());
+        IngestState.Entry entry = loaded.get("data/2001.csv");
+        assertEquals(120, entry.size);
+        assertEquals(1000, entry.modified);
+        assertEquals("ab12", entry.hash);
+        assertEquals(7, entry.getGenreCount(2));
+        assertEquals(0, entry.getGenreCount(16));
+        assertEquals(IngestState.key("data/2001.csv"), entry.getKey());
+        assertNull(loaded.get("data/2002.csv"));
+    }
+
+    @Test
+    void stateWithoutManifestIsLoaded() throws IOException {
+        Path stateFile = directory.resolve("state.txt");
+        Files.write(stateFile, Arrays.asList("movie-ingest-state 1", "data/2001.csv\t120\t1000\tab12\t3,0,7"),
+                StandardCharsets.UTF_8);
+        IngestState loaded = IngestState.load(stateFile.toFile());
+        assertNull(loaded.getManifest());
+        assertEquals(3, loaded.get("data/2001.csv").getGenreCount(0));
+    }
+
+    @Test
+    void malformedStateIsRefused() throws IOException {
+        Path stateFile = directory.resolve("state.txt");
+        Files.write(stateFile, Arrays.asList("something else"), StandardCharsets.UTF_8);
+        assertThrows(IOException.class, () -> IngestState.load(stateFile.toFile()));
+        Files.write(stateFile, Arrays.asList("movie-ingest-state 2", "file\tdata/2001.csv\t120\tx\tab12\t3"),
+                StandardCharsets.UTF_8);
+        assertThrows(IOException.class, () -> IngestState.load(stateFile.toFile()));
+        Files.write(stateFile, Arrays.asList("movie-ingest-state 2", "data/2001.csv\t120\t1000\tab12\t3"),
+                StandardCharsets.UTF_8);
+        assertThrows(IOException.class, () -> IngestState.load(stateFile.toFile()));
+    }
+
+    @Test
+    void keysTellApartFilesWithTheSameName() {
+        String key = IngestState.key("a/2001.csv");
+        assertTrue(key.startsWith("2001.csv-"));
+        assertEquals(key, IngestState.key("a/2001.csv"));
+        assertNotEquals(key, IngestState.key("b/2001.csv"));
+        assertTrue(IngestState.key("data/my movies?.csv").matches("[A-Za-z0-9._-]+"));
+    }
+
+    @Test
+    void hashDependsOnContent() throws IOException {
+        Path first = directory.resolve("first.csv");
+        Path second = directory.resolve("second.csv");
+        Files.write(first, "a,b\n".getBytes(StandardCharsets.UTF_8));
+        Files.write(second, "a,c\n".getBytes(StandardCharsets.UTF_8));
+        String hash = IngestState.hash(first.toFile());
+        assertEquals(64, hash.length());
+        assertEquals(hash, IngestState.hash(first.toFile()));
+        assertNotEquals(hash, IngestState.hash(second.toFile()));
+    }
+}
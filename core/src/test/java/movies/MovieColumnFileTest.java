@@ -0,0 +1,106 @@
+// -----------------------------------------------------
+// The MovieColumnFileTest class checks that movies written to a movie file are read back unchanged, over several
+// blocks, with their statistics, and that truncated or corrupt files are refused with an IOException.
+// -----------------------------------------------------
+
+package movies;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MovieColumnFileTest {
+
+    @TempDir
+    Path directory;
+
+    private static Movie[] movies(int count) {
+        String[] ratings = {"PG", "R", "G", "PG-13"};
+        Movie[] movies = new Movie[count];
+        for (int i = 0; i < count; i++) {
+            movies[i] = new Movie(1950 + i % 70, "Title " + i + (i % 3 == 0 ? ", with comma" : "") + " é",
+                    60 + i % 120, "Drama", ratings[i % ratings.length], (i % 100) / 10.0,
+                    "Director " + i % 7, "Actor " + i % 11, "Actor " + i % 13, i % 5 == 0 ? "" : "Actor " + i % 17);
+        }
+        return movies;
+    }
+
+    @Test
+    void moviesAreReadBack() throws IOException {
+        Movie[] movies = movies(25);
+        String fileName = directory.resolve("Drama.mcf").toString();
+        try (MovieColumnWriter writer = new MovieColumnWriter(fileName, 8)) {
+            for (Movie movie : movies) {
+                writer.write(movie);
+            }
+        }
+        try (MovieColumnFile file = MovieColumnFile.open(fileName)) {
+            assertEquals(25, file.size());
+            assertArrayEquals(movies, file.readAll());
+            MovieStats stats = file.getStats();
+            assertEquals(25, stats.getRows());
+            assertEquals(1950, stats.getMinYear());
+            assertEquals(1974, stats.getMaxYear());
+            assertEquals(0.0, stats.getMinScore());
+            assertEquals(2.4, stats.getMaxScore());
+            assertEquals(8, file.getBlockStats(0).getRows());
+            assertEquals(1, file.getBlockStats(3).getRows());
+        }
+    }
+
+    @Test
+    void emptyFileHasNoMovies() throws IOException {
+        String fileName = directory.resolve("Empty.mcf").toString();
+        MovieColumnFile.write(new Movie[0], fileName);
+        assertEquals(0, MovieColumnFile.readAll(fileName).length);
+    }
+
+    @Test
+    void poolSharesNamesAcrossFiles() throws IOException {
+        Movie[] movies = movies(10);
+        String first = directory.resolve("First.mcf").toString();
+        String second = directory.resolve("Second.mcf").toString();
+        MovieColumnFile.write(movies, first);
+        MovieColumnFile.write(movies, second);
+        NamePool pool = new NamePool(NamePool.DEFAULT_CAPACITY);
+        Movie[] fromFirst = MovieColumnFile.readAll(first, pool);
+        Movie[] fromSecond = MovieColumnFile.readAll(second, pool);
+        assertArrayEquals(movies, fromSecond);
+        assertSame(fromFirst[0].getDirector(), fromSecond[0].getDirector());
+    }
+
+    @Test
+    void truncatedFileIsRefused() throws IOException {
+        Path file = directory.resolve("Drama.mcf");
+        MovieColumnFile.write(movies(10), file.toString());
+        byte[] bytes = Files.readAllBytes(file);
+        for (int length : new int[]{0, 4, bytes.length / 2, bytes.length - 1}) {
+            Path truncated = directory.resolve("Truncated" + length + ".mcf");
+            Files.write(truncated, Arrays.copyOf(bytes, length));
+            assertThrows(IOException.class, () -> MovieColumnFile.readAll(truncated.toString()), "length " + length);
+        }
+    }
+
+    @Test
+    void corruptTitleOffsetIsRefused() throws IOException {
+        Path file = directory.resolve("Drama.mcf");
+        MovieColumnFile.write(movies(4), file.toString());
+        try (MovieColumnFile columns = MovieColumnFile.open(file.toString())) {
+            assertEquals(4, columns.size());
+        }
+        // The 12-byte header is followed by the first block; point the end of the first title far past it
+        long titleOffsets = 12 + MovieColumnFile.titleOffsetsOffset(4);
+        try (RandomAccessFile corrupt = new RandomAccessFile(file.toFile(), "rw")) {
+            corrupt.seek(titleOffsets + 4);
+            corrupt.writeInt(Integer.MAX_VALUE);
+        }
+        assertThrows(IOException.class, () -> MovieColumnFile.readAll(file.toString()));
+    }
+}
@@ -0,0 +1,36 @@
+// -----------------------------------------------------
+// The MovieManagerTest class checks that the genre CSV records of part 1 are read back by part 2 as the movies they
+// were written from.
+// -----------------------------------------------------
+
+package movies;
+
+import Exceptions.MovieRecordException;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MovieManagerTest {
+
+    private final MovieManager manager = new MovieManager();
+
+    private Movie roundTrip(Movie movie) throws MovieRecordException {
+        return manager.validateMovieRecord(manager.convertMovieToCSV(movie), new CsvTokenizer());
+    }
+
+    @Test
+    void recordIsReadBackAsTheSameMovie() throws MovieRecordException {
+        Movie movie = new Movie(1995, "Heat", 170, "Crime", "R", 8.3, "Michael Mann", "Al Pacino", "Robert De Niro",
+                "Val Kilmer");
+        assertEquals(movie, roundTrip(movie));
+    }
+
+    @Test
+    void titlesAndNamesWithCommasAreQuoted() throws MovieRecordException {
+        Movie movie = new Movie(1992, "Hello, 40", 112, "Drama", "PG-13", 9.1, "Ray, Bob", "Joe Doe", "Li Wei",
+                "Ann Lee");
+        String record = manager.convertMovieToCSV(movie);
+        assertTrue(record.contains("\"Hello, 40\""), record);
+        assertEquals(movie, roundTrip(movie));
+    }
+}
@@ -0,0 +1,83 @@
+// -----------------------------------------------------
+// The MovieQueryTest class checks that a query only opens the genre stores it has to read.
+// -----------------------------------------------------
+
+package movies;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MovieQueryTest {
+
+    private static final int DRAMA = CodeTable.GENRES.lookup("drama");
+    private static final int CRIME = CodeTable.GENRES.lookup("crime");
+    private static final int WESTERN = CodeTable.GENRES.lookup("western");
+
+    private static MovieStore[] catalog() {
+        Movie[][] movies = new Movie[CodeTable.GENRES.size()][];
+        for (int genre : new int[]{DRAMA, CRIME, WESTERN}) {
+            String name = CodeTable.GENRES.names()[genre];
+            movies[genre] = new Movie[]{
+                    new Movie(1990, name + " 1", 100, name, "PG", 6.0, "D", "A", "B", "C"),
+                    new Movie(2000, name + " 2", 120, name, "R", 8.0, "D", "A", "B", "C")};
+        }
+        return ArrayMovieStore.of(movies);
+    }
+
+    private static MovieQuery.Result run(String query, List<Integer> opened) {
+        MovieStore[] catalog = catalog();
+        boolean[] present = new boolean[catalog.length];
+        for (int genre = 0; genre < catalog.length; genre++) {
+            present[genre] = catalog[genre] != null;
+        }
+        return MovieQuery.parse(query).run(present, genre -> {
+            opened.add(genre);
+            return catalog[genre];
+        });
+    }
+
+    @Test
+    void genresRuledOutByTheGenreConditionAreNotOpened() {
+        List<Integer> opened = new ArrayList<>();
+        MovieQuery.Result result = run("genre in (drama, western) and year >= 1995 order by score", opened);
+        assertEquals(List.of(DRAMA, WESTERN), opened);
+        assertEquals(2, result.getMovies().size());
+        assertEquals(2, result.getPartitionsScanned());
+        assertEquals(1, result.getPartitionsSkipped());
+    }
+
+    @Test
+    void genresAfterAFullUnorderedResultAreNotOpened() {
+        List<Integer> opened = new ArrayList<>();
+        MovieQuery.Result result = run("limit 2", opened);
+        assertEquals(1, opened.size());
+        assertEquals(2, result.getMovies().size());
+        assertEquals(2, result.getPartitionsSkipped());
+    }
+
+    @Test
+    void openedAndArrayCatalogsGiveTheSameResult() {
+        String query = "score > 7 order by year asc limit 2";
+        MovieQuery.Result fromArray = MovieQuery.parse(query).run(catalog());
+        MovieQuery.Result opened = run(query, new ArrayList<>());
+        assertEquals(fromArray.getMovies(), opened.getMovies());
+        assertEquals(fromArray.getRowsScanned(), opened.getRowsScanned());
+    }
+
+    @Test
+    void genreThatCannotBeOpenedIsLeftOut() {
+        MovieStore[] catalog = catalog();
+        boolean[] present = new boolean[catalog.length];
+        present[DRAMA] = true;
+        present[CRIME] = true;
+        MovieQuery.Result result = MovieQuery.parse("year > 0").run(present,
+                genre -> genre == CRIME ? null : catalog[genre]);
+        assertEquals(2, result.getMovies().size());
+        assertEquals(1, result.getPartitionsScanned());
+        assertEquals(0, result.getPartitionsSkipped());
+    }
+}
@@ -0,0 +1,140 @@
+// -----------------------------------------------------
+// The BenchmarkData class gives the benchmarks their input: datasets written by DatasetGenerator, one per number
+// of rows and reject rate, with every error code in the same proportion. A dataset is written the first time it is
+// asked for and reused by the later forks and runs, as the generator is seeded; they are kept under the directory
+// named by the movies.benchmark.data system property, jmh-data by default.
+// Parts 1 and 2 write their files to the working directory, so the benchmarks are meant to be run from an empty
+// scratch directory (see PipelineBenchmark).
+// -----------------------------------------------------
+
+package movies;
+
+import Exceptions.MovieRecordException;
+import java.io.*;
+import java.util.ArrayList;
+import java.util.List;
+
+final class BenchmarkData {
+
+    static final String[] GENRES = CodeTable.GENRES.names();
+    static final String PART1_MANIFEST = "part1_manifest.txt";
+    static final String PART2_MANIFEST = "part2_manifest.txt";
+    static final String PART3_MANIFEST = "part3_manifest.txt";
+    static final String ERROR_FILE = "bad-movie_records.txt";
+    private static final long SEED = 42;
+    private static final PrintStream STDOUT = System.out;
+    private static final PrintStream NO_OUTPUT = new PrintStream(OutputStream.nullOutputStream());
+
+    private BenchmarkData() {
+    }
+
+    /**
+     * Returns the directory of a dataset, writing the dataset if it is not there yet.
+     * @param rows The number of records of the dataset.
+     * @param rejectRate The percentage of invalid records.
+     * @return The directory holding the yearly files and their manifest.
+     * @throws IOException If the dataset cannot be written.
+     */
+    static File dataset(int rows, int rejectRate) throws IOException {
+        File directory = new File(System.getProperty("movies.benchmark.data", "jmh-data"),
+                "rows-" + rows + "-reject-" + rejectRate);
+        if (!new File(directory, DatasetGenerator.MANIFEST).exists()) {
+            new DatasetGenerator(SEED + rejectRate)
+                    .rows(rows)
+                    .rejectRate(rejectRate / 100.0)
+                    .write(directory);
+        }
+        return directory;
+    }
+
+    /**
+     * Returns the yearly files of a dataset, in manifest order.
+     * @param directory The directory of the dataset.
+     * @return The paths of the yearly files.
+     * @throws IOException If the manifest cannot be read.
+     */
+    static List<String> inputFiles(File directory) throws IOException {
+        List<String> inputFiles = new ArrayList<>();
+        try (BufferedReader manifestReader = new BufferedReader(new FileReader(
+                new File(directory, DatasetGenerator.MANIFEST)))) {
+            String inputFile;
+            while ((inputFile = manifestReader.readLine()) != null) {
+                inputFiles.add(new File(directory, inputFile).getPath());
+            }
+        }
+        return inputFiles;
+    }
+
+    /**
+     * Validates the dataset into movie arrays, one per genre.
+     * @param manager The manager validating the records.
+     * @param inputFiles The yearly files of the dataset.
+     * @return The valid movies, indexed by genre.
+     * @throws IOException If a yearly file cannot be read.
+     */
+    static Movie[][] loadMovies(MovieManager manager, List<String> inputFiles) throws IOException {
+        List<List<Movie>> genres = new ArrayList<>();
+        for (int i = 0; i < GENRES.length; i++) {
+            genres.add(new ArrayList<>());
+        }
+        CsvTokenizer tokenizer = new CsvTokenizer();
+        for (String inputFile : inputFiles) {
+            try (ByteLineReader reader = new ByteLineReader(inputFile)) {
+                while (reader.nextLine()) {
+                    try {
+                        Movie movie = manager.validateMovieRecord(reader.getBuffer(), reader.getLineStart(),
+                                reader.getLineEnd(), tokenizer);
+                        if (movie != null) {
+                            genres.get(movie.getGenreId()).add(movie);
+                        }
+                    } catch (MovieRecordException e) {
+                        // Rejected records are not part of the loaded catalog
+                    }
+                }
+            }
+        }
+        Movie[][] movies = new Movie[GENRES.length][];
+        for (int i = 0; i < GENRES.length; i++) {
+            movies[i] = genres.get(i).toArray(new Movie[0]);
+        }
+        return movies;
+    }
+
+    /**
+     * Writes a part 3 manifest listing the file of every genre.
+     * @param extension The extension of the genre files.
+     * @throws IOException If the manifest cannot be written.
+     */
+    static void writePart3Manifest(String extension) throws IOException {
+        try (PrintWriter manifestWriter = new PrintWriter(new FileWriter(PART3_MANIFEST))) {
+            for (String genre : GENRES) {
+                manifestWriter.println(genre + extension);
+            }
+        }
+    }
+
+    /**
+     * Deletes the files written by parts 1 and 2, as the genre CSV files and the error file are appended to.
+     */
+    static void deleteOutputs() {
+        for (String genre : GENRES) {
+            new File(genre + ".csv").delete();
+            new File(genre + ".ser").delete();
+            new File(genre + ".obj").delete();
+        }
+        for (String file : new String[]{ERROR_FILE, PART2_MANIFEST, PART3_MANIFEST}) {
+            new File(file).delete();
+        }
+    }
+
+    /**
+     * Stops the summaries the parts print from cluttering the output of the benchmarks, until restoreOutput.
+     */
+    static void silenceOutput() {
+        System.setOut(NO_OUTPUT);
+    }
+
+    static void restoreOutput() {
+        System.setOut(STDOUT);
+    }
+}
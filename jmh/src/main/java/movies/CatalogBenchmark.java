@@ -0,0 +1,111 @@
+// -----------------------------------------------------
+// The CatalogBenchmark class measures what is done with the valid movies of a dataset once they are parsed:
+// formatting them as CSV lines with convertMovieToCSV, serializing and deserializing them in the binary column
+// format against ObjectOutputStream and ObjectInputStream, and loading the serialized genre files into
+// ColumnarMovieStores and OffHeapMovieStores. The genre files are written to the working directory.
+//     java -jar jmh/target/benchmarks.jar CatalogBenchmark -p rows=1000000 -p rejectRate=1
+// -----------------------------------------------------
+
+package movies;
+
+import java.io.*;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(2)
+@State(Scope.Benchmark)
+public class CatalogBenchmark {
+
+    private static final String[] GENRES = BenchmarkData.GENRES;
+
+    @Param({"10000", "100000", "1000000", "10000000"})
+    public int rows;
+
+    @Param({"1", "10", "50"})
+    public int rejectRate;
+
+    private MovieManager manager;
+    private Movie[][] movies;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        manager = new MovieManager();
+        movies = BenchmarkData.loadMovies(manager, BenchmarkData.inputFiles(BenchmarkData.dataset(rows, rejectRate)));
+        // The deserialization benchmarks read the files of both formats
+        for (int i = 0; i < GENRES.length; i++) {
+            manager.serializeMovieArray(movies[i], GENRES[i] + ".ser");
+        }
+        serializeObjectOutputStream();
+        BenchmarkData.writePart3Manifest(".ser");
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkData.deleteOutputs();
+    }
+
+    @Benchmark
+    public long convertMovieToCSV() {
+        long length = 0;
+        for (Movie[] genre : movies) {
+            for (Movie movie : genre) {
+                length += manager.convertMovieToCSV(movie).length();
+            }
+        }
+        return length;
+    }
+
+    @Benchmark
+    public long serializeMovieArray() {
+        long bytes = 0;
+        for (int i = 0; i < GENRES.length; i++) {
+            manager.serializeMovieArray(movies[i], GENRES[i] + ".ser");
+            bytes += new File(GENRES[i] + ".ser").length();
+        }
+        return bytes;
+    }
+
+    @Benchmark
+    public long serializeObjectOutputStream() throws IOException {
+        long bytes = 0;
+        for (int i = 0; i < GENRES.length; i++) {
+            try (ObjectOutputStream out = new ObjectOutputStream(new BufferedOutputStream(
+                    new FileOutputStream(GENRES[i] + ".obj")))) {
+                out.writeObject(movies[i]);
+            }
+            bytes += new File(GENRES[i] + ".obj").length();
+        }
+        return bytes;
+    }
+
+    @Benchmark
+    public Movie[][] deserializeMovieArray() {
+        return manager.deserializeMovieArray(BenchmarkData.PART3_MANIFEST);
+    }
+
+    @Benchmark
+    public long deserializeObjectInputStream() throws IOException, ClassNotFoundException {
+        long count = 0;
+        for (String genre : GENRES) {
+            try (ObjectInputStream in = new ObjectInputStream(new BufferedInputStream(
+                    new FileInputStream(genre + ".obj")))) {
+                count += ((Movie[]) in.readObject()).length;
+            }
+        }
+        return count;
+    }
+
+    @Benchmark
+    public MovieStore[] loadColumnarStores() {
+        return manager.loadColumnarStores(BenchmarkData.PART3_MANIFEST);
+    }
+
+    @Benchmark
+    public MovieStore[] loadOffHeapStores() {
+        return manager.loadOffHeapStores(BenchmarkData.PART3_MANIFEST);
+    }
+}
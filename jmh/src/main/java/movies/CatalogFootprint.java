@@ -0,0 +1,208 @@
+// -----------------------------------------------------
+// The CatalogFootprint class compares what a loaded catalog costs while it is kept, for Movie arrays,
+// ColumnarMovieStores and OffHeapMovieStores: the heap and direct memory it holds, the resident set size of the
+// process, the length of a full garbage collection, and the number and total length of the collections while the
+// dataset is parsed into movie arrays twice next to it, as churn. These are not timings, so they are measured by a
+// plain program rather than by JMH. Every kind of store is measured in a JVM of its own, started with the options of
+// this one, so no store is measured next to the heap, direct memory or GC history another store left behind.
+// It writes the genre files to the working directory:
+//     java -cp jmh/target/benchmarks.jar movies.CatalogFootprint --rows=1000000 --reject-rate=1
+// -----------------------------------------------------
+
+package movies;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+
+public class CatalogFootprint {
+
+    private static final String PART3_MANIFEST = BenchmarkData.PART3_MANIFEST;
+    private static final String[] STORES = {"arrays", "columnar", "off-heap"};
+
+    /**
+     * Prints the footprint of the catalog of a dataset in every kind of store, each measured in a new JVM.
+     * @param args --rows=N the number of records of the dataset, --reject-rate=P the percentage of invalid records,
+     *             and --store=arrays, columnar or off-heap to measure a single kind of store in this JVM, from the
+     *             genre files already written, as the JVMs started for every kind of store do.
+     */
+    public static void main(String[] args) throws IOException, InterruptedException {
+        int rows = 100_000;
+        int rejectRate = 1;
+        String store = null;
+        for (String arg : args) {
+            if (arg.startsWith("--rows=")) {
+                rows = Integer.parseInt(arg.substring("--rows=".length()));
+            } else if (arg.startsWith("--reject-rate=")) {
+                rejectRate = Integer.parseInt(arg.substring("--reject-rate=".length()));
+            } else if (arg.startsWith("--store=")) {
+                store = arg.substring("--store=".length());
+            } else {
+                System.err.println("Unknown option: " + arg);
+                return;
+            }
+        }
+        List<String> inputFiles = BenchmarkData.inputFiles(BenchmarkData.dataset(rows, rejectRate));
+        if (store != null) {
+            printFootprint(store, inputFiles);
+            return;
+        }
+        writeGenreFiles(new MovieManager(), inputFiles);
+        System.out.printf("%-34s %10s %10s %10s %12s %10s %10s%n", "Loaded catalog", "Heap MB", "Direct MB",
+                "RSS MB", "Full GC ms", "Churn GCs", "Churn ms");
+        try {
+            for (String kind : STORES) {
+                List<String> command = new ArrayList<>();
+                command.add(Paths.get(System.getProperty("java.home"), "bin", "java").toString());
+                command.addAll(ManagementFactory.getRuntimeMXBean().getInputArguments());
+                command.add("-cp");
+                command.add(System.getProperty("java.class.path"));
+                command.add(CatalogFootprint.class.getName());
+                command.add("--rows=" + rows);
+                command.add("--reject-rate=" + rejectRate);
+                command.add("--store=" + kind);
+                int exitCode = new ProcessBuilder(command).inheritIO().start().waitFor();
+                if (exitCode != 0) {
+                    System.err.println("Measuring the " + kind + " stores failed with exit code " + exitCode + ".");
+                }
+            }
+        } finally {
+            BenchmarkData.deleteOutputs();
+        }
+    }
+
+    /**
+     * Measures one kind of store over the genre files already written.
+     */
+    private static void printFootprint(String store, List<String> inputFiles) throws IOException {
+        MovieManager manager = new MovieManager();
+        // The valid movies are counted before the catalog is loaded, so the counting leaves nothing behind
+        long validRows = 0;
+        for (MovieStore genre : manager.openMovieStores(PART3_MANIFEST)) {
+            if (genre != null) {
+                validRows += genre.size();
+                ((MappedMovieStore) genre).close();
+            }
+        }
+        switch (store) {
+            case "arrays":
+                printFootprint("Movie arrays", validRows, inputFiles,
+                        () -> ArrayMovieStore.of(manager.deserializeMovieArray(PART3_MANIFEST)));
+                break;
+            case "columnar":
+                printFootprint("columnar stores", validRows, inputFiles,
+                        () -> manager.loadColumnarStores(PART3_MANIFEST));
+                break;
+            case "off-heap":
+                printFootprint("off-heap stores", validRows, inputFiles,
+                        () -> manager.loadOffHeapStores(PART3_MANIFEST));
+                break;
+            default:
+                System.err.println("Unknown store: " + store);
+        }
+    }
+
+    /**
+     * Serializes the valid movies of the dataset into genre files listed by a part 3 manifest.
+     */
+    private static void writeGenreFiles(MovieManager manager, List<String> inputFiles) throws IOException {
+        Movie[][] movies = BenchmarkData.loadMovies(manager, inputFiles);
+        for (int i = 0; i < movies.length; i++) {
+            manager.serializeMovieArray(movies[i], BenchmarkData.GENRES[i] + ".ser");
+        }
+        BenchmarkData.writePart3Manifest(".ser");
+    }
+
+    /**
+     * Loads the serialized catalog and prints what it costs while it is kept.
+     */
+    private static void printFootprint(String name, long expectedRows, List<String> inputFiles,
+                                       Supplier<MovieStore[]> loader) throws IOException {
+        long heapBefore = usedHeap();
+        long directBefore = directMemory();
+        MovieStore[] catalog = loader.get();
+        long heap = usedHeap() - heapBefore;
+        long direct = directMemory() - directBefore;
+        long rss = residentSetSize();
+        long start = System.nanoTime();
+        System.gc();
+        long fullGc = System.nanoTime() - start;
+        long[] gcBefore = collections();
+        for (int i = 0; i < 2; i++) {
+            BenchmarkData.loadMovies(new MovieManager(), inputFiles);
+        }
+        long[] gcAfter = collections();
+        // Counting the rows after the churn also keeps the catalog reachable until then
+        if (countRows(catalog) != expectedRows) {
+            throw new IllegalStateException("The " + name + " do not hold every movie of the dataset.");
+        }
+        System.out.printf("%-34s %10.1f %10.1f %10s %12.1f %10d %10d%n", name, heap / 1e6, direct / 1e6,
+                rss < 0 ? "-" : String.format("%.1f", rss / 1e6), fullGc / 1e6, gcAfter[0] - gcBefore[0],
+                gcAfter[1] - gcBefore[1]);
+    }
+
+    /**
+     * Returns the number of garbage collections so far and their total length in milliseconds.
+     */
+    private static long[] collections() {
+        long[] totals = new long[2];
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            totals[0] += Math.max(collector.getCollectionCount(), 0);
+            totals[1] += Math.max(collector.getCollectionTime(), 0);
+        }
+        return totals;
+    }
+
+    private static long directMemory() {
+        for (BufferPoolMXBean pool : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)) {
+            if (pool.getName().equals("direct")) {
+                return pool.getMemoryUsed();
+            }
+        }
+        return 0;
+    }
+
+    /**
+     * Returns the resident set size of the process, as read from /proc on Linux.
+     * @return The resident set size in bytes, or -1 where it cannot be read.
+     */
+    private static long residentSetSize() {
+        try (BufferedReader status = new BufferedReader(new FileReader("/proc/self/status"))) {
+            String line;
+            while ((line = status.readLine()) != null) {
+                if (line.startsWith("VmRSS:")) {
+                    return 1024 * Long.parseLong(line.substring("VmRSS:".length()).replace("kB", "").trim());
+                }
+            }
+        } catch (IOException | NumberFormatException e) {
+            // Not on Linux
+        }
+        return -1;
+    }
+
+    private static long countRows(MovieStore[] stores) {
+        long count = 0;
+        for (MovieStore store : stores) {
+            count += store == null ? 0 : store.size();
+        }
+        return count;
+    }
+
+    /**
+     * Returns the heap in use after asking for a few garbage collections, as an estimate of the live objects.
+     */
+    private static long usedHeap() {
+        Runtime runtime = Runtime.getRuntime();
+        for (int i = 0; i < 4; i++) {
+            System.gc();
+        }
+        return runtime.totalMemory() - runtime.freeMemory();
+    }
+}
@@ -0,0 +1,167 @@
+// -----------------------------------------------------
+// The LegacyRecordParser class keeps the record parser MovieManager used before CsvTokenizer, as a baseline for
+// ValidationBenchmark. It copies every character of a line into a StringBuilder, keeps a trimmed String per field,
+// and trims every field again, running a regular expression on the title, when it builds the Movie.
+// Its validation rules are the ones of that time. It is only meant to be measured, not used by the application.
+// The record exceptions it throws no longer capture a stack trace, as they did then (see MovieRecordException),
+// so the comparison with CsvTokenizer is of the parsing alone.
+// -----------------------------------------------------
+
+package movies;
+
+import Exceptions.*;
+
+final class LegacyRecordParser {
+
+    /**
+     * Validates a single movie record, ensuring it meets expected format and data requirements.
+     * @param record A string representing a single line from the movie records file.
+     * @return A Movie object if the record is valid, otherwise null.
+     * @throws MovieRecordException ExcessFieldsException, MissingFieldsException, and other validation exceptions if the record is invalid.
+     */
+    Movie validateMovieRecord(String record) throws MovieRecordException {
+        if (record == null || record.isEmpty()) {
+            return null;
+        }
+
+        // Expected number of fields in a movie record
+        final int expectedFieldCount = 10;
+        // Array to hold the fields extracted from the record
+        String[] fields = new String[expectedFieldCount];
+        int fieldIndex = 0;
+        StringBuilder currentField = new StringBuilder();
+        // Flag to handle quoted fields which may contain commas
+        boolean inQuotes = false;
+
+        // Parse the record one character at a time
+        for (int i = 0; i < record.length(); i++) {
+            char ch = record.charAt(i);
+            if (ch == '\"') {
+                inQuotes = !inQuotes; // Toggle the inQuotes flag
+            } else if (ch == ',' && !inQuotes) {
+                if (fieldIndex < expectedFieldCount) {
+                    fields[fieldIndex++] = currentField.toString().trim();
+                    currentField.setLength(0); // Clear the StringBuilder for the next field
+                    if (fieldIndex >= expectedFieldCount) {
+                        // Break if the next field would exceed the array bounds
+                        break;
+                    }
+                } else {
+                    throw new ExcessFieldsException("Excess number of fields.");
+                }
+            } else {
+                currentField.append(ch);
+            }
+        }
+        // After the loop, if not in the middle of processing a quoted field and have not exceeded field count, assign the last field
+        if (!inQuotes && fieldIndex < expectedFieldCount) {
+            fields[fieldIndex] = currentField.toString().trim();
+        }
+
+        // Check if all fields were filled
+        if (fieldIndex < expectedFieldCount - 1) {
+            throw new MissingFieldsException("Missing fields. Expected " + expectedFieldCount + " but found " + (fieldIndex + 1));
+        }
+
+        validateFields(fields);
+        return createMovieFromFields(fields);
+    }
+
+    private void validateFields(String[] fields) throws MovieRecordException {
+        validateYear(fields[0]);
+        validateTitle(fields[1]);
+        validateDuration(fields[2]);
+        validateGenre(fields[3]);
+        validateRating(fields[4]);
+        validateScore(fields[5]);
+        String[] names = {fields[6], fields[7], fields[8], fields[9]};
+        validateNames(names);
+    }
+
+    private void validateYear(String yearString) throws BadYearException {
+        try {
+            int year = Integer.parseInt(yearString);
+            if (year < 1990 || year > 1999) {
+                throw new BadYearException("Invalid year: " + year + ". The year must be between 1990 and 1999.");
+            }
+        } catch (NumberFormatException e) {
+            throw new BadYearException("The year must be an integer between 1990 and 1999.");
+        }
+    }
+
+    private void validateTitle(String title) throws BadTitleException {
+        if (title == null || title.isEmpty()) {
+            throw new BadTitleException("Missing title");
+        }
+    }
+
+    private void validateDuration(String durationString) throws BadDurationException {
+        try {
+            int duration = Integer.parseInt(durationString);
+            if (duration < 30 || duration > 300) {
+                throw new BadDurationException("Invalid duration: " + duration);
+            }
+        } catch (NumberFormatException e) {
+            throw new BadDurationException("The duration must be an integer between 30 and 300 minutes.");
+        }
+    }
+
+    private void validateGenre(String genre) throws BadGenreException {
+        if (genre == null || genre.isEmpty()) {
+            throw new BadGenreException("Missing genre");
+        }
+        genre = genre.toLowerCase();
+        if (!(genre.equals("musical") || genre.equals("comedy") || genre.equals("animation") || genre.equals("adventure") ||
+                genre.equals("drama") || genre.equals("crime") || genre.equals("biography") || genre.equals("horror") ||
+                genre.equals("action") || genre.equals("documentary") || genre.equals("fantasy") || genre.equals("mystery") ||
+                genre.equals("sci-fi") || genre.equals("family") || genre.equals("romance") || genre.equals("thriller") ||
+                genre.equals("western"))) {
+            throw new BadGenreException("Invalid genre: " + genre);
+        }
+    }
+
+    private void validateRating(String rating) throws BadRatingException {
+        if (rating == null || rating.isEmpty()) {
+            throw new BadRatingException("Missing rating");
+        }
+        rating = rating.toLowerCase();
+        if (!(rating.equals("pg") || rating.equals("unrated") || rating.equals("g") || rating.equals("r") ||
+                rating.equals("pg-13") || rating.equals("nc-17"))) {
+            throw new BadRatingException("Invalid rating: " + rating);
+        }
+    }
+
+    private void validateScore(String scoreString) throws BadScoreException {
+        try {
+            double score = Double.parseDouble(scoreString);
+            if (score < 0.0 || score > 10.0) {
+                throw new BadScoreException("Invalid score: " + score + ". Score must be between 0.0 and 10.0.");
+            }
+        } catch (NumberFormatException e) {
+            throw new BadScoreException("Score must be a positive double value less than or equal to 10.");
+        }
+    }
+
+    private void validateNames(String[] names) throws BadNameException {
+        for (String name : names) {
+            if (name == null || name.trim().isEmpty()) {
+                throw new BadNameException("Missing name(s) in the record.");
+            }
+        }
+    }
+
+    private Movie createMovieFromFields(String[] fields) {
+        int year = Integer.parseInt(fields[0].trim());
+        String title = fields[1].trim().replaceAll("^\"|\"$", ""); // Remove surrounding quotes
+        int duration = Integer.parseInt(fields[2].trim());
+        String genres = fields[3].trim();
+        String rating = fields[4].trim();
+        double score = Double.parseDouble(fields[5].trim());
+        String director = fields[6].trim();
+        String actor1 = fields[7].trim();
+        String actor2 = fields[8].trim();
+        String actor3 = fields[9].trim();
+
+        return new Movie(year, title, duration, genres, rating, score, director, actor1, actor2, actor3);
+    }
+}
@@ -0,0 +1,93 @@
+// -----------------------------------------------------
+// The PipelineBenchmark class measures the parts of the pipeline end to end on a dataset, at every thread count:
+// part 1 (do_part1), the single pass of parts 1 and 2 (do_pipeline), part 2 (do_part2) and the loading of the genre
+// files it writes (deserializeMovieArray). Part 1 and the single pass start every operation from an empty working
+// directory, as their genre CSV files and error file are appended to; part 2 and the loading reuse the output of
+// one run of part 1. The parts write their files to the working directory, so run the benchmarks from an empty
+// scratch directory:
+//     java -jar ../jmh/target/benchmarks.jar PipelineBenchmark -p rows=1000000 -p rejectRate=10 -p threads=1,4
+// -----------------------------------------------------
+
+package movies;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(2)
+@State(Scope.Benchmark)
+public class PipelineBenchmark {
+
+    @Param({"10000", "100000", "1000000", "10000000"})
+    public int rows;
+
+    @Param({"1", "10", "50"})
+    public int rejectRate;
+
+    @Param({"1", "2", "4"})
+    public int threads;
+
+    private String manifest;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        manifest = new File(BenchmarkData.dataset(rows, rejectRate), BenchmarkData.PART1_MANIFEST).getPath();
+        BenchmarkData.silenceOutput();
+        BenchmarkData.deleteOutputs();
+        new MovieManager().do_part1(manifest);
+        new MovieManager().do_part2(BenchmarkData.PART2_MANIFEST);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        BenchmarkData.deleteOutputs();
+        BenchmarkData.restoreOutput();
+    }
+
+    /**
+     * The part 1 outputs appended to by do_part1 and do_pipeline, emptied before every operation.
+     */
+    @State(Scope.Thread)
+    public static class EmptyOutputs {
+        @Setup(Level.Invocation)
+        public void setUp() {
+            BenchmarkData.deleteOutputs();
+        }
+    }
+
+    @Benchmark
+    public long do_part1(EmptyOutputs outputs) {
+        MovieManager manager = new MovieManager();
+        manager.setIngestionThreads(threads);
+        manager.do_part1(manifest);
+        return new File(BenchmarkData.ERROR_FILE).length();
+    }
+
+    @Benchmark
+    public long do_pipeline(EmptyOutputs outputs) {
+        MovieManager manager = new MovieManager();
+        manager.setIngestionThreads(threads);
+        manager.do_pipeline(manifest, false);
+        return new File(BenchmarkData.PART3_MANIFEST).length();
+    }
+
+    @Benchmark
+    public long do_part2() {
+        MovieManager manager = new MovieManager();
+        manager.setGenreThreads(threads);
+        manager.do_part2(BenchmarkData.PART2_MANIFEST);
+        return new File(BenchmarkData.PART3_MANIFEST).length();
+    }
+
+    @Benchmark
+    public Movie[][] deserializeMovieArray() {
+        MovieManager manager = new MovieManager();
+        manager.setGenreThreads(threads);
+        return manager.deserializeMovieArray(BenchmarkData.PART3_MANIFEST);
+    }
+}
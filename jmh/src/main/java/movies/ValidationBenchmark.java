@@ -0,0 +1,138 @@
+// -----------------------------------------------------
+// The ValidationBenchmark class measures reading and validating the yearly files of part 1: reading their lines
+// through a BufferedReader and through a ByteLineReader, and validating every line with validateMovieRecord from a
+// String and straight from the bytes of the line, with and without the name pool. The character by character parser
+// CsvTokenizer replaced is measured on the same lines as a baseline (see LegacyRecordParser).
+// Every benchmark runs in forks of its own, so the String and byte paths are compiled from their own profiles.
+// An operation goes through the whole dataset, so the scores are the time of a pass over the dataset.
+//     java -jar jmh/target/benchmarks.jar ValidationBenchmark -p rows=1000000 -p rejectRate=10
+// -----------------------------------------------------
+
+package movies;
+
+import Exceptions.MovieRecordException;
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(2)
+@State(Scope.Benchmark)
+public class ValidationBenchmark {
+
+    @Param({"10000", "100000", "1000000", "10000000"})
+    public int rows;
+
+    @Param({"1", "10", "50"})
+    public int rejectRate;
+
+    private List<String> inputFiles;
+    private MovieManager pooled;
+    private MovieManager unpooled;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        inputFiles = BenchmarkData.inputFiles(BenchmarkData.dataset(rows, rejectRate));
+        pooled = new MovieManager();
+        unpooled = new MovieManager();
+        unpooled.setNamePool(null);
+    }
+
+    @Benchmark
+    public long readLinesBufferedReader() throws IOException {
+        long lines = 0;
+        for (String inputFile : inputFiles) {
+            try (BufferedReader reader = new BufferedReader(new FileReader(inputFile))) {
+                while (reader.readLine() != null) {
+                    lines++;
+                }
+            }
+        }
+        return lines;
+    }
+
+    @Benchmark
+    public long readLinesByteLineReader() throws IOException {
+        long lines = 0;
+        for (String inputFile : inputFiles) {
+            try (ByteLineReader reader = new ByteLineReader(inputFile)) {
+                while (reader.nextLine()) {
+                    lines++;
+                }
+            }
+        }
+        return lines;
+    }
+
+    @Benchmark
+    public long validateMovieRecordString() throws IOException {
+        long valid = 0;
+        CsvTokenizer tokenizer = new CsvTokenizer();
+        for (String inputFile : inputFiles) {
+            try (BufferedReader reader = new BufferedReader(new FileReader(inputFile))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    try {
+                        valid += pooled.validateMovieRecord(line, tokenizer) != null ? 1 : 0;
+                    } catch (MovieRecordException e) {
+                        valid += e.getErrorCode().ordinal();
+                    }
+                }
+            }
+        }
+        return valid;
+    }
+
+    @Benchmark
+    public long validateMovieRecordLegacy() throws IOException {
+        long valid = 0;
+        LegacyRecordParser parser = new LegacyRecordParser();
+        for (String inputFile : inputFiles) {
+            try (BufferedReader reader = new BufferedReader(new FileReader(inputFile))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    try {
+                        valid += parser.validateMovieRecord(line) != null ? 1 : 0;
+                    } catch (MovieRecordException e) {
+                        valid += e.getErrorCode().ordinal();
+                    }
+                }
+            }
+        }
+        return valid;
+    }
+
+    @Benchmark
+    public long validateMovieRecordBytes() throws IOException {
+        return validateBytes(pooled);
+    }
+
+    @Benchmark
+    public long validateMovieRecordBytesNoPool() throws IOException {
+        return validateBytes(unpooled);
+    }
+
+    private long validateBytes(MovieManager manager) throws IOException {
+        long valid = 0;
+        CsvTokenizer tokenizer = new CsvTokenizer();
+        for (String inputFile : inputFiles) {
+            try (ByteLineReader reader = new ByteLineReader(inputFile)) {
+                while (reader.nextLine()) {
+                    try {
+                        valid += manager.validateMovieRecord(reader.getBuffer(), reader.getLineStart(),
+                                reader.getLineEnd(), tokenizer) != null ? 1 : 0;
+                    } catch (MovieRecordException e) {
+                        valid += e.getErrorCode().ordinal();
+                    }
+                }
+            }
+        }
+        return valid;
+    }
+}